@@ -0,0 +1,178 @@
+/**
+ * @file: Workloads.java
+ * @description: This program prepares the work the JMH benchmarks in the bench package measure: BST, ArrayBST
+ * and BPlusTree operations on integer keys, the same on combine candidates, csv parsing and end-to-end
+ * command file runs. JMH will not generate code for benchmarks in the default package, and a named package
+ * cannot refer to the project's classes, so the benchmarks look these factories up reflectively once per
+ * trial and time only the returned suppliers
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class Workloads {
+
+    // Number of integer keys used by the tree benchmarks
+    private static final int KEYS = 20_000;
+
+    // Returns the tree operations on 'keys' (random, sorted or duplicates) for one engine
+    // (plain, avl, plainArray, avlArray or bplus), keyed by operation name
+    // search, traversal and iterator share one tree built here; insert and insertThenRemove build their own
+    public static Map<String, Supplier<Object>> trees(String engine, String keys) {
+        Supplier<OrderedIndex<Integer>> factory = switch (engine) {
+            case "plain" -> () -> new BST<>(false);
+            case "avl" -> () -> new BST<>(true);
+            case "plainArray" -> () -> new ArrayBST<>(false);
+            case "avlArray" -> () -> new ArrayBST<>(true);
+            case "bplus" -> () -> new BPlusTree<>();
+            default -> throw new IllegalArgumentException("unknown engine: " + engine);
+        };
+        List<Integer> list = keys(keys);
+        OrderedIndex<Integer> tree = build(list, factory);
+
+        Map<String, Supplier<Object>> operations = new HashMap<>();
+        operations.put("insert", () -> build(list, factory));
+        operations.put("search", () -> {
+            int found = 0;
+            for (Integer key : list) {
+                if (tree.search(key) != null) found++;
+            }
+            return found;
+        });
+        operations.put("traversal", () -> {
+            long[] sum = {0};
+            tree.forEach(key -> sum[0] += key);
+            return sum[0];
+        });
+        operations.put("iterator", () -> {
+            long sum = 0;
+            for (Integer key : tree) sum += key;
+            return sum;
+        });
+        operations.put("insertThenRemove", () -> {
+            OrderedIndex<Integer> copy = build(list, factory);
+            for (Integer key : list) copy.remove(key);
+            return copy;
+        });
+        return operations;
+    }
+
+    // Returns KEYS integer keys: shuffled, ascending, or drawn from 100 values so each repeats about 200 times
+    private static List<Integer> keys(String kind) {
+        Random random = new Random(42);
+        List<Integer> keys = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            keys.add(kind.equals("duplicates") ? random.nextInt(100) : i);
+        }
+        switch (kind) {
+            case "random" -> Collections.shuffle(keys, random);
+            case "sorted", "duplicates" -> { }
+            default -> throw new IllegalArgumentException("unknown keys: " + kind);
+        }
+        return keys;
+    }
+
+    // Builds a tree by inserting 'keys' one at a time
+    private static OrderedIndex<Integer> build(List<Integer> keys, Supplier<OrderedIndex<Integer>> factory) {
+        OrderedIndex<Integer> tree = factory.get();
+        for (Integer key : keys) tree.insert(key);
+        return tree;
+    }
+
+    // Returns parsing, loading, searching and range operations on every candidate in 'dataset', keyed by name
+    public static Map<String, Supplier<Object>> candidates(String dataset) throws IOException {
+        byte[] csv = Files.readAllBytes(new File(dataset).toPath());
+        CandidateTable table = CandidateTable.fromCsv(new CsvReader(csv));
+        List<Candidate> candidates = new ArrayList<>(table.size());
+        for (int row = 0; row < table.size(); row++) {
+            candidates.add(table.row(row));
+        }
+        BST<Candidate> tree = new BST<>(true);
+        tree.bulkLoad(candidates);
+        ArrayBST<Candidate> array = new ArrayBST<Candidate>(Candidate::getWeight_lbs, true);
+        array.bulkLoad(candidates);
+        BPlusTree<Candidate> bplus = new BPlusTree<>(Candidate.byMetric(CandidateTable.WEIGHT_LBS));
+        bplus.bulkLoad(candidates);
+        Candidate lo = new Candidate();
+        Candidate hi = new Candidate();
+        lo.setWeight_lbs(200);
+        hi.setWeight_lbs(260);
+
+        Map<String, Supplier<Object>> operations = new HashMap<>();
+        operations.put("csvParse", () -> CandidateTable.fromCsv(new CsvReader(csv)));
+        operations.put("insert", () -> {
+            BST<Candidate> built = new BST<>(true);
+            for (Candidate candidate : candidates) built.insert(candidate);
+            return built;
+        });
+        operations.put("bulkLoad", () -> {
+            BST<Candidate> built = new BST<>(true);
+            built.bulkLoad(candidates);
+            return built;
+        });
+        operations.put("arrayInsert", () -> {
+            ArrayBST<Candidate> built = new ArrayBST<Candidate>(Candidate::getWeight_lbs, true);
+            for (Candidate candidate : candidates) built.insert(candidate);
+            return built;
+        });
+        operations.put("search", () -> searchAll(tree, candidates));
+        operations.put("arraySearch", () -> searchAll(array, candidates));
+        operations.put("bplusSearch", () -> searchAll(bplus, candidates));
+        operations.put("range", () -> tree.rangeSearch(lo, hi));
+        operations.put("bplusRange", () -> bplus.rangeSearch(lo, hi));
+        return operations;
+    }
+
+    // Searches 'index' for every candidate and returns how many were found
+    private static int searchAll(OrderedIndex<Candidate> index, List<Candidate> candidates) {
+        int found = 0;
+        for (Candidate candidate : candidates) {
+            if (index.search(candidate) != null) found++;
+        }
+        return found;
+    }
+
+    // Returns an operation that runs a generated file of 'commands' commands through a new Parser, which loads
+    // 'dataset', runs load-all and then mostly searches with some inserts and removes
+    public static Map<String, Supplier<Object>> commandFile(String dataset, int commands) throws IOException {
+        CandidateTable table = CandidateTable.fromCsv(CsvReader.open(dataset));
+        File file = File.createTempFile("bench-commands", ".txt");
+        File result = File.createTempFile("bench-result", ".txt");
+        file.deleteOnExit();
+        result.deleteOnExit();
+        Random random = new Random(42);
+        try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            writer.println(); // Parser skips the first line
+            writer.println("load-all");
+            for (int i = 0; i < commands; i++) {
+                String name = table.getName(random.nextInt(table.size()));
+                int kind = random.nextInt(100);
+                writer.println((kind < 5 ? "remove " : kind < 10 ? "insert " : "search ") + name);
+            }
+        }
+        System.setProperty("parser.dataset", dataset);
+        System.setProperty("parser.result", result.getPath());
+
+        Map<String, Supplier<Object>> operations = new HashMap<>();
+        operations.put("run", () -> {
+            try {
+                return new Parser(file.getPath());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return operations;
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * @file: CandidateBenchmark.java
+ * @description: This program benchmarks the combine dataset: csv parsing, loading every candidate into a
+ * tree one by one or in bulk, searching for every candidate in each engine, and a 200-260 lbs range query
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+package bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CandidateBenchmark {
+
+    // Dataset csv, relative to the directory the benchmarks run from
+    @Param({"src/nfl_combine.csv"})
+    public String dataset;
+
+    private Supplier<Object> csvParse;
+    private Supplier<Object> insert;
+    private Supplier<Object> bulkLoad;
+    private Supplier<Object> arrayInsert;
+    private Supplier<Object> search;
+    private Supplier<Object> arraySearch;
+    private Supplier<Object> bplusSearch;
+    private Supplier<Object> range;
+    private Supplier<Object> bplusRange;
+
+    // Parses the dataset and builds the trees the searches and range queries run against
+    @Setup
+    public void setup() {
+        Map<String, Supplier<Object>> operations = Workload.operations("candidates", dataset);
+        csvParse = operations.get("csvParse");
+        insert = operations.get("insert");
+        bulkLoad = operations.get("bulkLoad");
+        arrayInsert = operations.get("arrayInsert");
+        search = operations.get("search");
+        arraySearch = operations.get("arraySearch");
+        bplusSearch = operations.get("bplusSearch");
+        range = operations.get("range");
+        bplusRange = operations.get("bplusRange");
+    }
+
+    // Parses the whole csv into a CandidateTable
+    @Benchmark
+    public void csvParse(Blackhole blackhole) {
+        blackhole.consume(csvParse.get());
+    }
+
+    // Inserts every candidate into a new balanced BST one at a time
+    @Benchmark
+    public void insert(Blackhole blackhole) {
+        blackhole.consume(insert.get());
+    }
+
+    // Bulk-loads every candidate into a new balanced BST
+    @Benchmark
+    public void bulkLoad(Blackhole blackhole) {
+        blackhole.consume(bulkLoad.get());
+    }
+
+    // Inserts every candidate into a new ArrayBST keyed by a primitive float
+    @Benchmark
+    public void arrayInsert(Blackhole blackhole) {
+        blackhole.consume(arrayInsert.get());
+    }
+
+    // Searches the BST for every candidate
+    @Benchmark
+    public void search(Blackhole blackhole) {
+        blackhole.consume(search.get());
+    }
+
+    // Searches the ArrayBST for every candidate
+    @Benchmark
+    public void arraySearch(Blackhole blackhole) {
+        blackhole.consume(arraySearch.get());
+    }
+
+    // Searches the BPlusTree for every candidate
+    @Benchmark
+    public void bplusSearch(Blackhole blackhole) {
+        blackhole.consume(bplusSearch.get());
+    }
+
+    // Collects the candidates weighing 200 to 260 lbs from the BST
+    @Benchmark
+    public void range(Blackhole blackhole) {
+        blackhole.consume(range.get());
+    }
+
+    // Collects the candidates weighing 200 to 260 lbs from the BPlusTree
+    @Benchmark
+    public void bplusRange(Blackhole blackhole) {
+        blackhole.consume(bplusRange.get());
+    }
+}
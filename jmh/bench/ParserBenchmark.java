@@ -0,0 +1,56 @@
+/**
+ * @file: ParserBenchmark.java
+ * @description: This program benchmarks a whole Parser run: loading the dataset, load-all, and a generated
+ * command file of mostly searches with some inserts and removes
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ParserBenchmark {
+
+    // Dataset csv, relative to the directory the benchmarks run from
+    @Param({"src/nfl_combine.csv"})
+    public String dataset;
+
+    // Number of commands in the generated file after load-all
+    @Param({"50000"})
+    public int commands;
+
+    private Supplier<Object> run;
+
+    // Writes the command file and points the Parser at the dataset and a scratch result file
+    @Setup
+    public void setup() {
+        run = Workload.operations("commandFile", dataset, commands).get("run");
+    }
+
+    // Runs the whole command file through a new Parser
+    @Benchmark
+    public void commandFile(Blackhole blackhole) {
+        blackhole.consume(run.get());
+    }
+}
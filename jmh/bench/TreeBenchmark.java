@@ -0,0 +1,88 @@
+/**
+ * @file: TreeBenchmark.java
+ * @description: This program benchmarks building, searching, traversing and emptying each storage engine on
+ * 20,000 integer keys that arrive shuffled, sorted, or as about 200 copies of each of 100 values
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+package bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TreeBenchmark {
+
+    @Param({"plain", "avl", "plainArray", "avlArray", "bplus"})
+    public String engine;
+
+    @Param({"random", "sorted", "duplicates"})
+    public String keys;
+
+    private Supplier<Object> insert;
+    private Supplier<Object> search;
+    private Supplier<Object> traversal;
+    private Supplier<Object> iterator;
+    private Supplier<Object> insertThenRemove;
+
+    // Builds the shared tree and resolves every operation for this engine and key order
+    @Setup
+    public void setup() {
+        Map<String, Supplier<Object>> operations = Workload.operations("trees", engine, keys);
+        insert = operations.get("insert");
+        search = operations.get("search");
+        traversal = operations.get("traversal");
+        iterator = operations.get("iterator");
+        insertThenRemove = operations.get("insertThenRemove");
+    }
+
+    // Inserts every key into a new tree
+    @Benchmark
+    public void insert(Blackhole blackhole) {
+        blackhole.consume(insert.get());
+    }
+
+    // Searches the shared tree for every key
+    @Benchmark
+    public void search(Blackhole blackhole) {
+        blackhole.consume(search.get());
+    }
+
+    // Visits the shared tree with forEach
+    @Benchmark
+    public void traversal(Blackhole blackhole) {
+        blackhole.consume(traversal.get());
+    }
+
+    // Visits the shared tree with its iterator
+    @Benchmark
+    public void iterator(Blackhole blackhole) {
+        blackhole.consume(iterator.get());
+    }
+
+    // Builds a new tree and removes every key from it again
+    @Benchmark
+    public void insertThenRemove(Blackhole blackhole) {
+        blackhole.consume(insertThenRemove.get());
+    }
+}
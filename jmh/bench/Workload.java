@@ -0,0 +1,38 @@
+/**
+ * @file: Workload.java
+ * @description: This program looks up the operations prepared by the default-package Workloads class, which
+ * code in a named package can only reach reflectively. The lookup happens once per trial, outside any
+ * measured method
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.function.Supplier;
+
+final class Workload {
+
+    private Workload() {
+    }
+
+    // Calls the public static Workloads method 'factory' with 'args' and returns its operations by name
+    @SuppressWarnings("unchecked")
+    static Map<String, Supplier<Object>> operations(String factory, Object... args) {
+        try {
+            for (Method method : Class.forName("Workloads").getMethods()) {
+                if (method.getName().equals(factory) && method.getParameterCount() == args.length) {
+                    return (Map<String, Supplier<Object>>) method.invoke(null, args);
+                }
+            }
+            throw new IllegalArgumentException("No workload factory " + factory);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Workload " + factory + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Workload " + factory + " is unavailable", e);
+        }
+    }
+}
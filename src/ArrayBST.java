@@ -0,0 +1,609 @@
+/**
+ * @file: ArrayBST.java
+ * @description: This program implements a BST storage engine that keeps its nodes in parallel arrays instead
+ * of Node objects. Children, parents and heights are int columns indexed by slot, elements sharing a key are
+ * chained through a next column, and removed slots are recycled through a free list. A tree can also keep a
+ * primitive float key column, so descents compare floats without dereferencing any element
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+class ArrayBST<T> implements OrderedIndex<T> {
+    // Slot number standing for "no node"
+    private static final int NIL = -1;
+
+    private final Comparator<? super T> comparator; // Ordering of the tree's keys
+    private final FloatKey<? super T> key; // Extracts the primitive key of an element, or null to use 'comparator'
+    private final boolean balanced; // Whether the tree rebalances itself as an AVL tree
+
+    private Object[] elements; // Element stored in each slot
+    private float[] keys; // Primitive key of each slot, only kept when 'key' is set
+    private int[] left; // Left child of each tree slot
+    private int[] right; // Right child of each tree slot
+    private int[] parent; // Parent of each tree slot, NIL for the root
+    private int[] height; // Height of the subtree rooted at each tree slot, 1 for a leaf
+    private int[] next; // Next slot holding an equal key, or the next free slot once a slot is removed
+    private int[] last; // Last slot of the chain headed by each tree slot
+
+    private int root; // Slot of the root, NIL when the tree is empty
+    private int free; // First slot of the free list, NIL when there is none
+    private int used; // Number of slots handed out so far; slots past it have never held an element
+    private int size; // Number of elements in the tree
+    private long rotations; // Number of rotations performed since the tree was created
+    private int modCount; // Number of modifications, so iterators can fail fast
+
+    // Extracts the float sort key of an element
+    public interface FloatKey<T> {
+        float key(T obj);
+    }
+
+    // Constructor for a plain or self-balancing tree ordered by the elements' natural ordering
+    @SuppressWarnings("unchecked")
+    public ArrayBST(boolean balanced) {
+        this((Comparator<? super T>) Comparator.naturalOrder(), null, balanced);
+    }
+
+    // Constructor for a plain or self-balancing tree ordered by 'comparator'
+    public ArrayBST(Comparator<? super T> comparator, boolean balanced) {
+        this(comparator, null, balanced);
+    }
+
+    // Constructor for a plain or self-balancing tree ordered by a float key, kept in its own column
+    // NaN keys sort after every other key, as with Float.compare
+    public ArrayBST(FloatKey<? super T> key, boolean balanced) {
+        this((a, b) -> Float.compare(key.key(a), key.key(b)), key, balanced);
+    }
+
+    private ArrayBST(Comparator<? super T> comparator, FloatKey<? super T> key, boolean balanced) {
+        this.comparator = comparator;
+        this.key = key;
+        this.balanced = balanced;
+        allocate(16);
+        root = NIL;
+        free = NIL;
+    }
+
+    // Creates empty columns with room for 'capacity' slots
+    private void allocate(int capacity) {
+        elements = new Object[capacity];
+        keys = key == null ? null : new float[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        height = new int[capacity];
+        next = new int[capacity];
+        last = new int[capacity];
+    }
+
+    // Doubles the capacity of every column
+    private void grow() {
+        int capacity = elements.length * 2;
+        elements = Arrays.copyOf(elements, capacity);
+        if (keys != null) keys = Arrays.copyOf(keys, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        height = Arrays.copyOf(height, capacity);
+        next = Arrays.copyOf(next, capacity);
+        last = Arrays.copyOf(last, capacity);
+    }
+
+    // Takes a slot from the free list, or the next unused one, and stores 'obj' in it as a leaf
+    private int newSlot(T obj, float objKey) {
+        int slot;
+        if (free != NIL) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (used == elements.length) grow();
+            slot = used++;
+        }
+        elements[slot] = obj;
+        if (keys != null) keys[slot] = objKey;
+        left[slot] = NIL;
+        right[slot] = NIL;
+        parent[slot] = NIL;
+        next[slot] = NIL;
+        last[slot] = slot;
+        height[slot] = 1;
+        return slot;
+    }
+
+    // Puts a slot on the free list, dropping its element so it can be collected
+    private void freeSlot(int slot) {
+        elements[slot] = null;
+        next[slot] = free;
+        free = slot;
+    }
+
+    // Returns the primitive key of obj, or 0 when the tree orders by comparator
+    private float keyOf(T obj) {
+        return key == null ? 0 : key.key(obj);
+    }
+
+    // Compares the key held in 'slot' with obj, whose primitive key is 'objKey'
+    // With a key column this is a float comparison that never touches the stored element
+    @SuppressWarnings("unchecked")
+    private int compare(int slot, T obj, float objKey) {
+        return keys != null ? Float.compare(keys[slot], objKey) : comparator.compare((T) elements[slot], obj);
+    }
+
+    // Returns the element stored in 'slot'
+    @SuppressWarnings("unchecked")
+    private T element(int slot) {
+        return (T) elements[slot];
+    }
+
+    // Implement the clear method
+    // Keeps the columns allocated, so refilling the tree does not grow them again
+    public void clear() {
+        Arrays.fill(elements, 0, used, null);
+        root = NIL;
+        free = NIL;
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    // Implement the isEmpty method
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    // Implement the size method
+    public int size() {
+        return size;
+    }
+
+    // Returns the ordering of the tree
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    // Returns whether the tree keeps itself balanced
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    // Returns the height of the tree (0 when empty)
+    public int height() {
+        return height(root);
+    }
+
+    // Returns the number of rotations performed to keep the tree balanced
+    public long rotations() {
+        return rotations;
+    }
+
+    // Implement the insert method
+    // Walks down once and links a new leaf slot, or appends to the chain of an equal key
+    public void insert(T obj) {
+        float objKey = keyOf(obj);
+        int parentSlot = NIL;
+        int current = root;
+        int cmp = 0;
+        while (current != NIL) {
+            cmp = compare(current, obj, objKey);
+            if (cmp == 0) {
+                int slot = newSlot(obj, objKey);
+                next[last[current]] = slot;
+                last[current] = slot;
+                size++;
+                modCount++;
+                return;
+            }
+            parentSlot = current;
+            // Smaller elements go left, greater elements go right
+            current = cmp > 0 ? left[current] : right[current];
+        }
+
+        int slot = newSlot(obj, objKey);
+        parent[slot] = parentSlot;
+        if (parentSlot == NIL) {
+            root = slot; // The tree was empty
+        } else if (cmp > 0) {
+            left[parentSlot] = slot;
+        } else {
+            right[parentSlot] = slot;
+        }
+        size++;
+        modCount++;
+        fixUpwards(parentSlot);
+    }
+
+    // Adds every element of 'added' to the tree and rebuilds it perfectly balanced
+    // Slots are handed out in preorder, so a subtree occupies one contiguous run of the columns
+    public void bulkLoad(Collection<? extends T> added) {
+        List<T> all = new ArrayList<>(size + added.size());
+        forEach(all::add); // Already in order, so the sort below only has to merge the new run
+        all.addAll(added);
+        all.sort(comparator); // Stable, so equal keys keep their insertion order
+
+        // starts[g] is the position in 'all' of the first element of the g-th distinct key
+        int[] starts = new int[all.size() + 1];
+        int groups = 0;
+        for (int i = 0; i < all.size(); i++) {
+            if (i == 0 || comparator.compare(all.get(i - 1), all.get(i)) != 0) starts[groups++] = i;
+        }
+        starts[groups] = all.size();
+
+        clear();
+        if (elements.length < all.size()) allocate(all.size());
+        root = buildBalanced(all, starts, 0, groups - 1, NIL);
+        size = all.size();
+    }
+
+    // Links the distinct keys starts[lo..hi] into a balanced subtree under 'parentSlot' and returns its root
+    private int buildBalanced(List<T> all, int[] starts, int lo, int hi, int parentSlot) {
+        if (lo > hi) return NIL;
+        int mid = (lo + hi) >>> 1;
+        int slot = newSlot(all.get(starts[mid]), keyOf(all.get(starts[mid])));
+        for (int i = starts[mid] + 1; i < starts[mid + 1]; i++) {
+            int entry = newSlot(all.get(i), keyOf(all.get(i)));
+            next[last[slot]] = entry;
+            last[slot] = entry;
+        }
+        parent[slot] = parentSlot;
+        left[slot] = buildBalanced(all, starts, lo, mid - 1, slot);
+        right[slot] = buildBalanced(all, starts, mid + 1, hi, slot);
+        updateHeight(slot);
+        return slot;
+    }
+
+    // Implement the remove method
+    // Finds the slot for obj's key in one descent, then removes the chain entry equal to obj
+    public T remove(T obj) {
+        int head = findSlot(obj);
+        if (head == NIL) return null; // Nothing to remove
+
+        int previous = NIL;
+        int slot = head;
+        while (slot != NIL && !obj.equals(elements[slot])) {
+            previous = slot;
+            slot = next[slot];
+        }
+        if (slot == NIL) return null; // Same key, but a different element
+
+        T removed = element(slot);
+        size--;
+        modCount++;
+        if (next[head] != NIL) {
+            // Other elements share the key, so the tree slot stays and only the chain changes
+            if (slot == head) {
+                // Pull the second entry into the head so the tree links stay put
+                slot = next[head];
+                elements[head] = elements[slot];
+                previous = head;
+            }
+            next[previous] = next[slot];
+            if (last[head] == slot) last[head] = previous;
+            freeSlot(slot);
+            return removed;
+        }
+
+        int node = head;
+        if (left[node] != NIL && right[node] != NIL) {
+            // Two children: move the chain of the left subtree's maximum up and unlink that slot instead
+            int max = maxSlot(left[node]);
+            elements[node] = elements[max];
+            if (keys != null) keys[node] = keys[max];
+            next[node] = next[max];
+            last[node] = last[max] == max ? node : last[max];
+            node = max;
+        }
+
+        // 'node' now has at most one child, which takes its place
+        int child = left[node] != NIL ? left[node] : right[node];
+        int parentSlot = parent[node];
+        replaceChild(parentSlot, node, child);
+        freeSlot(node);
+        fixUpwards(parentSlot);
+        return removed;
+    }
+
+    // Implement the search method
+    // Returns the stored element equal to obj, or null if it is not in the tree
+    public T search(T obj) {
+        for (int slot = findSlot(obj); slot != NIL; slot = next[slot]) {
+            if (obj.equals(elements[slot])) return element(slot);
+        }
+        return null;
+    }
+
+    // Returns every element between 'lo' and 'hi' (inclusive) in order
+    // Descends once to the first key >= lo, then walks successors until a key passes hi
+    public List<T> rangeSearch(T lo, T hi) {
+        List<T> result = new ArrayList<>();
+        float hiKey = keyOf(hi);
+        for (int slot = ceilingSlot(lo); slot != NIL; slot = successor(slot)) {
+            if (compare(slot, hi, hiKey) > 0) break;
+            addChain(slot, result, Integer.MAX_VALUE);
+        }
+        return result;
+    }
+
+    // Returns the number of elements between 'lo' and 'hi' (inclusive), walking no further than 'limit' of them
+    @Override
+    public int countRange(T lo, T hi, int limit) {
+        int count = 0;
+        float hiKey = keyOf(hi);
+        for (int slot = ceilingSlot(lo); slot != NIL && count < limit; slot = successor(slot)) {
+            if (compare(slot, hi, hiKey) > 0) break;
+            for (int entry = slot; entry != NIL && count < limit; entry = next[entry]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Returns the greatest element whose key is <= obj, or null if there is none
+    public T floor(T obj) {
+        int slot = floorSlot(obj);
+        return slot == NIL ? null : element(slot);
+    }
+
+    // Returns the least element whose key is >= obj, or null if there is none
+    public T ceiling(T obj) {
+        int slot = ceilingSlot(obj);
+        return slot == NIL ? null : element(slot);
+    }
+
+    // Returns the k greatest elements, greatest first
+    public List<T> topK(int k) {
+        return topK(k, maxSlot(root));
+    }
+
+    // Returns the k greatest elements whose key is <= hi, greatest first
+    public List<T> topK(int k, T hi) {
+        return topK(k, floorSlot(hi));
+    }
+
+    // Collects up to k elements walking predecessors from 'start'
+    private List<T> topK(int k, int start) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(k, size)));
+        for (int slot = start; slot != NIL && result.size() < k; slot = predecessor(slot)) {
+            addChain(slot, result, k);
+        }
+        return result;
+    }
+
+    // Returns the k least elements, least first
+    public List<T> bottomK(int k) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(k, size)));
+        for (int slot = minSlot(root); slot != NIL && result.size() < k; slot = successor(slot)) {
+            addChain(slot, result, k);
+        }
+        return result;
+    }
+
+    // Appends the chain headed by 'slot' to 'result' until it holds 'limit' elements
+    private void addChain(int slot, List<T> result, int limit) {
+        for (; slot != NIL && result.size() < limit; slot = next[slot]) {
+            result.add(element(slot));
+        }
+    }
+
+    // Performs 'action' on every element in order with a stack-free successor walk
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (int node = minSlot(root); node != NIL; node = successor(node)) {
+            for (int slot = node; slot != NIL; slot = next[slot]) {
+                action.accept(element(slot));
+            }
+        }
+    }
+
+    // Implement the iterator method
+    @Override
+    public Iterator<T> iterator() {
+        return new ArrayBSTIterator();
+    }
+
+    // Iterative descent returning the tree slot whose key compares equal to 'obj', or NIL
+    private int findSlot(T obj) {
+        float objKey = keyOf(obj);
+        int current = root;
+        while (current != NIL) {
+            int cmp = compare(current, obj, objKey);
+            if (cmp == 0) return current; // Found
+            // If obj is smaller, search the left subtree, otherwise the right subtree
+            current = cmp > 0 ? left[current] : right[current];
+        }
+        return NIL;
+    }
+
+    // Returns the tree slot with the greatest key <= obj, or NIL
+    private int floorSlot(T obj) {
+        float objKey = keyOf(obj);
+        int best = NIL;
+        int current = root;
+        while (current != NIL) {
+            int cmp = compare(current, obj, objKey);
+            if (cmp == 0) return current;
+            if (cmp < 0) {
+                best = current; // Candidate floor, look for a larger one on the right
+                current = right[current];
+            } else {
+                current = left[current];
+            }
+        }
+        return best;
+    }
+
+    // Returns the tree slot with the least key >= obj, or NIL
+    private int ceilingSlot(T obj) {
+        float objKey = keyOf(obj);
+        int best = NIL;
+        int current = root;
+        while (current != NIL) {
+            int cmp = compare(current, obj, objKey);
+            if (cmp == 0) return current;
+            if (cmp > 0) {
+                best = current; // Candidate ceiling, look for a smaller one on the left
+                current = left[current];
+            } else {
+                current = right[current];
+            }
+        }
+        return best;
+    }
+
+    // Returns the leftmost slot of the subtree rooted at 'slot', or NIL if it is empty
+    private int minSlot(int slot) {
+        if (slot == NIL) return NIL;
+        while (left[slot] != NIL) slot = left[slot];
+        return slot;
+    }
+
+    // Returns the rightmost slot of the subtree rooted at 'slot', or NIL if it is empty
+    private int maxSlot(int slot) {
+        if (slot == NIL) return NIL;
+        while (right[slot] != NIL) slot = right[slot];
+        return slot;
+    }
+
+    // Returns the in-order successor of a tree slot by following child and parent links, or NIL
+    private int successor(int slot) {
+        if (right[slot] != NIL) return minSlot(right[slot]);
+        int up = parent[slot];
+        while (up != NIL && right[up] == slot) {
+            slot = up;
+            up = parent[up];
+        }
+        return up;
+    }
+
+    // Returns the in-order predecessor of a tree slot by following child and parent links, or NIL
+    private int predecessor(int slot) {
+        if (left[slot] != NIL) return maxSlot(left[slot]);
+        int up = parent[slot];
+        while (up != NIL && left[up] == slot) {
+            slot = up;
+            up = parent[up];
+        }
+        return up;
+    }
+
+    // Puts 'child' where 'node' hangs under 'parentSlot' (or at the root when 'parentSlot' is NIL)
+    private void replaceChild(int parentSlot, int node, int child) {
+        if (parentSlot == NIL) {
+            root = child;
+        } else if (left[parentSlot] == node) {
+            left[parentSlot] = child;
+        } else {
+            right[parentSlot] = child;
+        }
+        if (child != NIL) parent[child] = parentSlot;
+    }
+
+    // Walks from 'slot' towards the root refreshing heights and rebalancing
+    // Once a subtree keeps its old height nothing above it can change, so the walk stops there
+    private void fixUpwards(int slot) {
+        while (slot != NIL) {
+            int before = height[slot];
+            int subtree = rebalance(slot);
+            if (height[subtree] == before) break;
+            slot = parent[subtree];
+        }
+    }
+
+    // Returns the height of the subtree rooted at 'slot', treating NIL as 0
+    private int height(int slot) {
+        return slot == NIL ? 0 : height[slot];
+    }
+
+    // Recomputes the height of 'slot' from its children
+    private void updateHeight(int slot) {
+        height[slot] = 1 + Math.max(height(left[slot]), height(right[slot]));
+    }
+
+    // Refreshes the height of 'slot' and, in balanced mode, restores the AVL property
+    // Returns the root slot of the (possibly rotated) subtree
+    private int rebalance(int slot) {
+        updateHeight(slot);
+        if (!balanced) return slot;
+
+        int balance = height(left[slot]) - height(right[slot]);
+        if (balance > 1) {
+            // Left heavy: a left-right case needs the left child rotated first
+            if (height(left[left[slot]]) < height(right[left[slot]])) {
+                rotateLeft(left[slot]);
+            }
+            return rotateRight(slot);
+        } else if (balance < -1) {
+            // Right heavy: a right-left case needs the right child rotated first
+            if (height(right[right[slot]]) < height(left[right[slot]])) {
+                rotateRight(right[slot]);
+            }
+            return rotateLeft(slot);
+        }
+        return slot;
+    }
+
+    // Rotates the subtree rooted at 'slot' to the right and returns the new subtree root
+    private int rotateRight(int slot) {
+        int child = left[slot];
+        left[slot] = right[child];
+        if (right[child] != NIL) parent[right[child]] = slot;
+        replaceChild(parent[slot], slot, child);
+        right[child] = slot;
+        parent[slot] = child;
+        updateHeight(slot);
+        updateHeight(child);
+        rotations++;
+        return child;
+    }
+
+    // Rotates the subtree rooted at 'slot' to the left and returns the new subtree root
+    private int rotateLeft(int slot) {
+        int child = right[slot];
+        right[slot] = left[child];
+        if (left[child] != NIL) parent[left[child]] = slot;
+        replaceChild(parent[slot], slot, child);
+        left[child] = slot;
+        parent[slot] = child;
+        updateHeight(slot);
+        updateHeight(child);
+        rotations++;
+        return child;
+    }
+
+    // A lazy in-order iterator that walks successors, so it needs no stack
+    private class ArrayBSTIterator implements Iterator<T> {
+        private int node = minSlot(root); // Tree slot whose chain is being returned
+        private int entry = node; // Next chain entry to return, NIL when the iteration is done
+        private final int expectedModCount = modCount; // Modification count the iterator was created at
+
+        // Check if there is a next element to visit
+        @Override
+        public boolean hasNext() {
+            return entry != NIL;
+        }
+
+        // Return the next element in the traversal
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (entry == NIL) throw new NoSuchElementException();
+
+            T element = element(entry);
+            entry = next[entry];
+            if (entry == NIL) {
+                // Done with this chain: move on to the next key
+                node = successor(node);
+                entry = node;
+            }
+            return element;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+/**
+ * @file: BPlusTree.java
+ * @description: This program implements a B+-tree index engine. Inner nodes hold wide sorted arrays of
+ * separator keys, every element lives in a leaf, and the leaves are linked in both directions, so a lookup
+ * touches only a few levels and a range scan is a sequential walk along the leaves
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+class BPlusTree<T> implements OrderedIndex<T> {
+
+    // Most elements per leaf and most children per inner node, unless chosen at construction
+    public static final int DEFAULT_ORDER = 64;
+
+    private final Comparator<? super T> comparator; // Ordering of the keys
+    private final int order; // Most elements per leaf and most children per inner node
+    private BNode root; // Root node, an empty leaf when the tree is empty
+    private BNode first; // Leftmost leaf
+    private BNode last; // Rightmost leaf
+    private int levels; // Number of levels, 1 while the root is a leaf
+    private int size; // Number of elements in the tree
+    private int modCount; // Number of modifications, so iterators can fail fast
+
+    // Constructor for a tree ordered by the elements' natural ordering
+    @SuppressWarnings("unchecked")
+    public BPlusTree() {
+        this((Comparator<? super T>) Comparator.naturalOrder(), DEFAULT_ORDER);
+    }
+
+    // Constructor for a tree ordered by 'comparator'
+    public BPlusTree(Comparator<? super T> comparator) {
+        this(comparator, DEFAULT_ORDER);
+    }
+
+    // Constructor for a tree ordered by 'comparator' whose nodes hold up to 'order' entries
+    public BPlusTree(Comparator<? super T> comparator, int order) {
+        if (order < 3) throw new IllegalArgumentException("B+-tree order must be at least 3: " + order);
+        this.comparator = comparator;
+        this.order = order;
+        clear();
+    }
+
+    // Implement the clear method
+    public void clear() {
+        root = new BNode(true, order);
+        first = root;
+        last = root;
+        levels = 1;
+        size = 0;
+        modCount++;
+    }
+
+    // Implement the isEmpty method
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Implement the size method
+    public int size() {
+        return size;
+    }
+
+    // Returns the number of levels (0 when empty)
+    public int height() {
+        return size == 0 ? 0 : levels;
+    }
+
+    // Returns the ordering of the tree
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    // Implement the insert method
+    // Descends past every equal key so equal elements keep their insertion order, then splits full nodes upwards
+    public void insert(T obj) {
+        BNode leaf = root;
+        while (!leaf.isLeaf()) {
+            leaf = leaf.children[upperBound(leaf, obj)];
+        }
+        leaf.insertAt(upperBound(leaf, obj), obj);
+        size++;
+        modCount++;
+
+        BNode node = leaf;
+        while (node.count > order) {
+            BNode right = node.split();
+            if (node.isLeaf()) {
+                // Link the new leaf in after 'node'
+                right.next = node.next;
+                right.prev = node;
+                if (node.next != null) node.next.prev = right;
+                node.next = right;
+                if (last == node) last = right;
+            }
+            Object separator = node.isLeaf() ? right.keys[0] : node.promoted;
+            node.promoted = null;
+
+            BNode parent = node.parent;
+            if (parent == null) {
+                // The root split: grow a new root above both halves
+                parent = new BNode(false, order);
+                parent.children[0] = node;
+                parent.count = 1;
+                node.parent = parent;
+                root = parent;
+                levels++;
+            }
+            parent.insertChild(parent.childIndex(node) + 1, separator, right);
+            node = parent;
+        }
+    }
+
+    // Adds every element of 'elements' and rebuilds the tree bottom-up from full leaves
+    public void bulkLoad(Collection<? extends T> elements) {
+        List<T> all = new ArrayList<>(size + elements.size());
+        forEach(all::add); // Already in order, so the sort below only has to merge the new run
+        all.addAll(elements);
+        all.sort(comparator); // Stable, so equal keys keep their insertion order
+        clear();
+        if (all.isEmpty()) return;
+
+        // Spread the elements evenly over as few leaves as possible
+        List<BNode> level = new ArrayList<>();
+        List<Object> lowest = new ArrayList<>(); // Least element under each node of 'level'
+        int leaves = (all.size() + order - 1) / order;
+        int start = 0;
+        for (int i = 0; i < leaves; i++) {
+            int end = start + all.size() / leaves + (i < all.size() % leaves ? 1 : 0);
+            BNode leaf = new BNode(true, order);
+            for (int j = start; j < end; j++) {
+                leaf.keys[leaf.count++] = all.get(j);
+            }
+            if (!level.isEmpty()) {
+                BNode previous = level.get(level.size() - 1);
+                previous.next = leaf;
+                leaf.prev = previous;
+            }
+            level.add(leaf);
+            lowest.add(leaf.keys[0]);
+            start = end;
+        }
+        first = level.get(0);
+        last = level.get(level.size() - 1);
+
+        // Group each level under as few inner nodes as possible until one root remains
+        while (level.size() > 1) {
+            List<BNode> parents = new ArrayList<>();
+            List<Object> parentLowest = new ArrayList<>();
+            int groups = (level.size() + order - 1) / order;
+            start = 0;
+            for (int i = 0; i < groups; i++) {
+                int end = start + level.size() / groups + (i < level.size() % groups ? 1 : 0);
+                BNode parent = new BNode(false, order);
+                for (int j = start; j < end; j++) {
+                    if (j > start) parent.keys[parent.count - 1] = lowest.get(j);
+                    parent.children[parent.count++] = level.get(j);
+                    level.get(j).parent = parent;
+                }
+                parents.add(parent);
+                parentLowest.add(lowest.get(start));
+                start = end;
+            }
+            level = parents;
+            lowest = parentLowest;
+            levels++;
+        }
+        root = level.get(0);
+        size = all.size();
+    }
+
+    // Implement the remove method
+    // Leaves that empty out are unlinked and dropped from their parents; partly filled nodes are not merged,
+    // which keeps removal cheap and leaves every leaf at the same depth
+    public T remove(T obj) {
+        Cursor cursor = find(obj);
+        if (cursor == null) return null;
+
+        BNode leaf = cursor.leaf;
+        T removed = leaf.element(cursor.index);
+        leaf.removeAt(cursor.index);
+        size--;
+        modCount++;
+        if (leaf.count == 0 && leaf != root) removeNode(leaf);
+        return removed;
+    }
+
+    // Unlinks an empty node from its parent, removing ancestors that empty out and collapsing a root with one child
+    private void removeNode(BNode node) {
+        if (node.isLeaf()) {
+            if (node.prev != null) node.prev.next = node.next;
+            if (node.next != null) node.next.prev = node.prev;
+            if (first == node) first = node.next;
+            if (last == node) last = node.prev;
+        }
+        BNode parent = node.parent;
+        parent.removeChild(parent.childIndex(node));
+        if (parent.count == 0) {
+            if (parent == root) {
+                clear(); // Only reachable once the last element is gone
+            } else {
+                removeNode(parent);
+            }
+            return;
+        }
+        while (!root.isLeaf() && root.count == 1) {
+            root = root.children[0];
+            root.parent = null;
+            levels--;
+        }
+    }
+
+    // Implement the search method
+    // Returns the stored element equal to obj, or null if it is not in the tree
+    public T search(T obj) {
+        Cursor cursor = find(obj);
+        return cursor == null ? null : cursor.leaf.element(cursor.index);
+    }
+
+    // Returns every element between 'lo' and 'hi' (inclusive) in order, scanning the linked leaves
+    // A leaf whose last key is <= hi is copied whole, so only the final leaf compares element by element
+    public List<T> rangeSearch(T lo, T hi) {
+        List<T> result = new ArrayList<>();
+        Cursor start = lowerBound(lo);
+        int i = start.index;
+        for (BNode leaf = start.leaf; leaf != null; leaf = leaf.next, i = 0) {
+            if (i < leaf.count && comparator.compare(leaf.element(leaf.count - 1), hi) <= 0) {
+                for (; i < leaf.count; i++) {
+                    result.add(leaf.element(i));
+                }
+                continue;
+            }
+            for (; i < leaf.count; i++) {
+                T element = leaf.element(i);
+                if (comparator.compare(element, hi) > 0) return result;
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
+    // Returns the number of elements between 'lo' and 'hi' (inclusive), walking no further than 'limit' of them
+    // Leaves whose last key is <= hi are counted whole
+    @Override
+    public int countRange(T lo, T hi, int limit) {
+        int count = 0;
+        Cursor start = lowerBound(lo);
+        int i = start.index;
+        for (BNode leaf = start.leaf; leaf != null && count < limit; leaf = leaf.next, i = 0) {
+            if (i < leaf.count && comparator.compare(leaf.element(leaf.count - 1), hi) <= 0) {
+                count += leaf.count - i;
+                continue;
+            }
+            for (; i < leaf.count; i++) {
+                if (comparator.compare(leaf.element(i), hi) > 0) return Math.min(count, limit);
+                count++;
+            }
+        }
+        return Math.min(count, limit);
+    }
+
+    // Returns the first element of the greatest key <= obj, or null if there is none
+    public T floor(T obj) {
+        Cursor cursor = lowerBound(obj);
+        if (cursor.valid() && comparator.compare(cursor.get(), obj) == 0) return cursor.get();
+        cursor.back();
+        return cursor.valid() ? lowerBound(cursor.get()).get() : null;
+    }
+
+    // Returns the first element of the least key >= obj, or null if there is none
+    public T ceiling(T obj) {
+        Cursor cursor = lowerBound(obj);
+        return cursor.valid() ? cursor.get() : null;
+    }
+
+    // Returns the k greatest elements, greatest key first
+    public List<T> topK(int k) {
+        return topK(k, new Cursor(last, last.count - 1));
+    }
+
+    // Returns the k greatest elements whose key is <= hi, greatest key first
+    public List<T> topK(int k, T hi) {
+        Cursor cursor = upperBound(hi);
+        cursor.back();
+        return topK(k, cursor);
+    }
+
+    // Collects up to k elements walking backwards from 'cursor'
+    // Each run of equal keys is found backwards but added forwards, so ties keep their insertion order
+    private List<T> topK(int k, Cursor cursor) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(k, size)));
+        while (cursor.valid() && result.size() < k) {
+            T key = cursor.get();
+            int run = 1;
+            cursor.back();
+            while (cursor.valid() && comparator.compare(cursor.get(), key) == 0) {
+                run++;
+                cursor.back();
+            }
+            Cursor tie = new Cursor(cursor.leaf, cursor.index);
+            tie.forward(); // First element of the run
+            for (int i = 0; i < run && result.size() < k; i++, tie.forward()) {
+                result.add(tie.get());
+            }
+        }
+        return result;
+    }
+
+    // Returns the k least elements, least first
+    public List<T> bottomK(int k) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(k, size)));
+        for (Cursor cursor = new Cursor(first, 0); cursor.valid() && result.size() < k; cursor.forward()) {
+            result.add(cursor.get());
+        }
+        return result;
+    }
+
+    // Performs 'action' on every element in order by walking the leaves
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (BNode leaf = first; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                action.accept(leaf.element(i));
+            }
+        }
+    }
+
+    // Implement the iterator method
+    @Override
+    public Iterator<T> iterator() {
+        return new BPlusTreeIterator();
+    }
+
+    // Returns a cursor at the stored element equal to obj, or null
+    // Equal keys may span several leaves, so the scan follows the leaf links from the first of them
+    private Cursor find(T obj) {
+        for (Cursor cursor = lowerBound(obj); cursor.valid(); cursor.forward()) {
+            T element = cursor.get();
+            if (comparator.compare(element, obj) != 0) break;
+            if (obj.equals(element)) return cursor;
+        }
+        return null;
+    }
+
+    // Returns a cursor at the first element whose key is >= obj
+    // Descends to the child left of every separator >= obj, the leftmost leaf that can hold such a key
+    private Cursor lowerBound(T obj) {
+        BNode node = root;
+        while (!node.isLeaf()) {
+            node = node.children[lowerBound(node, obj)];
+        }
+        Cursor cursor = new Cursor(node, lowerBound(node, obj));
+        cursor.skipEnd();
+        return cursor;
+    }
+
+    // Returns a cursor at the first element whose key is > obj
+    private Cursor upperBound(T obj) {
+        BNode node = root;
+        while (!node.isLeaf()) {
+            node = node.children[upperBound(node, obj)];
+        }
+        Cursor cursor = new Cursor(node, upperBound(node, obj));
+        cursor.skipEnd();
+        return cursor;
+    }
+
+    // Binary search for the number of keys of 'node' that are < obj
+    // For an inner node that is also the child to descend into for a lower bound
+    private int lowerBound(BNode node, T obj) {
+        int lo = 0;
+        int hi = node.keyCount();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(node.element(mid), obj) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Binary search for the number of keys of 'node' that are <= obj
+    private int upperBound(BNode node, T obj) {
+        int lo = 0;
+        int hi = node.keyCount();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (comparator.compare(node.element(mid), obj) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // A node of the tree
+    // A leaf holds 'count' elements in keys; an inner node holds 'count' children and count - 1 separator keys,
+    // where every key under children[i] is <= keys[i] <= every key under children[i + 1]
+    private static final class BNode {
+        final Object[] keys; // Elements of a leaf, or separators of an inner node
+        final BNode[] children; // Children of an inner node, null for a leaf
+        int count; // Elements of a leaf, or children of an inner node
+        BNode parent; // Parent node, null for the root
+        BNode prev; // Previous leaf, null for the first leaf and for inner nodes
+        BNode next; // Next leaf, null for the last leaf and for inner nodes
+        Object promoted; // Separator handed to the parent by the last split of an inner node
+
+        // Constructor for an empty leaf or inner node; arrays have room for one entry past 'order' until a split
+        BNode(boolean leaf, int order) {
+            keys = new Object[order + 1];
+            children = leaf ? null : new BNode[order + 1];
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+
+        // Returns the number of keys: elements for a leaf, separators for an inner node
+        int keyCount() {
+            return isLeaf() ? count : count - 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T element(int i) {
+            return (T) keys[i];
+        }
+
+        // Inserts an element into a leaf at position i
+        void insertAt(int i, Object obj) {
+            System.arraycopy(keys, i, keys, i + 1, count - i);
+            keys[i] = obj;
+            count++;
+        }
+
+        // Removes the element at position i of a leaf
+        void removeAt(int i) {
+            System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+            keys[--count] = null;
+        }
+
+        // Inserts 'child' at position i of an inner node, with 'separator' as the key to its left
+        void insertChild(int i, Object separator, BNode child) {
+            System.arraycopy(children, i, children, i + 1, count - i);
+            System.arraycopy(keys, i - 1, keys, i, count - i);
+            children[i] = child;
+            keys[i - 1] = separator;
+            child.parent = this;
+            count++;
+        }
+
+        // Removes child i of an inner node along with the separator next to it
+        void removeChild(int i) {
+            System.arraycopy(children, i + 1, children, i, count - i - 1);
+            children[--count] = null;
+            int separator = Math.max(i - 1, 0);
+            if (count > 0) {
+                System.arraycopy(keys, separator + 1, keys, separator, count - separator - 1);
+                keys[count - 1] = null;
+            }
+        }
+
+        // Returns the position of 'child' among this node's children
+        int childIndex(BNode child) {
+            for (int i = 0; i < count; i++) {
+                if (children[i] == child) return i;
+            }
+            throw new IllegalStateException("Node is not a child of its parent");
+        }
+
+        // Moves the upper half of an overfull node into a new right sibling and returns it
+        // An inner node leaves the separator between the halves in 'promoted' for its parent
+        BNode split() {
+            BNode right = new BNode(isLeaf(), keys.length - 1);
+            int keep = count / 2;
+            if (isLeaf()) {
+                right.count = count - keep;
+                System.arraycopy(keys, keep, right.keys, 0, right.count);
+                Arrays.fill(keys, keep, count, null);
+            } else {
+                right.count = count - keep;
+                System.arraycopy(children, keep, right.children, 0, right.count);
+                System.arraycopy(keys, keep, right.keys, 0, right.count - 1);
+                promoted = keys[keep - 1];
+                Arrays.fill(children, keep, count, null);
+                Arrays.fill(keys, keep - 1, count - 1, null);
+                for (int i = 0; i < right.count; i++) {
+                    right.children[i].parent = right;
+                }
+            }
+            count = keep;
+            return right;
+        }
+    }
+
+    // A lazy in-order iterator that walks the linked leaves
+    private class BPlusTreeIterator implements Iterator<T> {
+        private final Cursor cursor = new Cursor(first, 0); // Next element to return
+        private final int expectedModCount = modCount; // Modification count the iterator was created at
+
+        // Check if there is a next element to visit
+        @Override
+        public boolean hasNext() {
+            return cursor.valid();
+        }
+
+        // Return the next element in the traversal
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (!cursor.valid()) throw new NoSuchElementException();
+            T element = cursor.get();
+            cursor.forward();
+            return element;
+        }
+    }
+
+    // A position in the leaf chain
+    // Walking off either end leaves it just outside the first or last leaf, where it is invalid but can step back
+    private final class Cursor {
+        BNode leaf; // Leaf holding the position
+        int index; // Element of 'leaf' at the position, -1 or count when outside it
+
+        Cursor(BNode leaf, int index) {
+            this.leaf = leaf;
+            this.index = index;
+        }
+
+        boolean valid() {
+            return index >= 0 && index < leaf.count;
+        }
+
+        T get() {
+            return leaf.element(index);
+        }
+
+        // Moves past the end of a leaf onto the start of the next one
+        void skipEnd() {
+            while (index >= leaf.count && leaf.next != null) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        // Moves to the next element
+        void forward() {
+            index++;
+            skipEnd();
+        }
+
+        // Moves to the previous element
+        void back() {
+            index--;
+            while (index < 0 && leaf.prev != null) {
+                leaf = leaf.prev;
+                index = leaf.count - 1;
+            }
+        }
+    }
+}
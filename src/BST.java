@@ -6,18 +6,64 @@
  */
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Stack;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-class BST<T extends Comparable<T>> {
+class BST<T> implements OrderedIndex<T> {
     private Node<T> root; // Root node of the tree
-    private int size; // Number of nodes in the tree
+    private int size; // Number of elements in the tree
+    private int nodes; // Number of nodes, one per distinct key
+    private final boolean balanced; // Whether the tree rebalances itself as an AVL tree
+    private long rotations; // Number of rotations performed since the tree was created
+    private final Comparator<? super T> comparator; // Ordering of the tree's keys
+    private int modCount; // Number of modifications, so iterators can fail fast
+    private final LongAdder comparisons = new LongAdder(); // Key comparisons made by descents from the root
+    private final LongAdder descents = new LongAdder(); // Descents from the root, one per insert or lookup
+
+    // Characters print() gathers before handing them to its output
+    private static final int PRINT_BUFFER = 1 << 16;
 
     // Implement the constructor
     public BST() {
+        this(false);
+    }
+
+    // Constructor that selects between a plain BST and a self-balancing AVL tree
+    // Elements are ordered by their natural ordering and must be Comparable
+    @SuppressWarnings("unchecked")
+    public BST(boolean balanced) {
+        this((Comparator<? super T>) Comparator.naturalOrder(), balanced);
+    }
+
+    // Constructor for a plain BST ordered by 'comparator'
+    public BST(Comparator<? super T> comparator) {
+        this(comparator, false);
+    }
+
+    // Constructor for a plain or self-balancing BST ordered by 'comparator'
+    public BST(Comparator<? super T> comparator, boolean balanced) {
         root = null;
         size = 0;
+        nodes = 0;
+        this.balanced = balanced;
+        rotations = 0;
+        this.comparator = comparator;
     }
 
     // Implement the getMax method
@@ -32,10 +78,45 @@ class BST<T extends Comparable<T>> {
         return root;
     }
 
+    // Returns the leftmost (minimum) node of the subtree rooted at 'root', or null if it is empty
+    public Node<T> getMin(Node<T> root) {
+        if (root == null) {
+            return null;
+        }
+        while (root.getLeft() != null) {
+            root = root.getLeft();
+        }
+        return root;
+    }
+
+    // Returns the in-order successor of 'node' by following child and parent links, or null
+    private Node<T> successor(Node<T> node) {
+        if (node.getRight() != null) return getMin(node.getRight());
+        Node<T> parent = node.getParent();
+        while (parent != null && parent.getRight() == node) {
+            node = parent;
+            parent = parent.getParent();
+        }
+        return parent;
+    }
+
+    // Returns the in-order predecessor of 'node' by following child and parent links, or null
+    private Node<T> predecessor(Node<T> node) {
+        if (node.getLeft() != null) return getMax(node.getLeft());
+        Node<T> parent = node.getParent();
+        while (parent != null && parent.getLeft() == node) {
+            node = parent;
+            parent = parent.getParent();
+        }
+        return parent;
+    }
+
     // Implement the clear method
     public void clear() {
         root = null;  // Remove the reference to the root, making the tree empty
         size = 0;     // Reset the size of the tree to 0
+        nodes = 0;
+        modCount++;
     }
 
     // Implement the isEmpty method
@@ -46,128 +127,587 @@ class BST<T extends Comparable<T>> {
         return size;
     }
 
+    // Returns the ordering of the tree
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    // Returns whether the tree keeps itself balanced
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    // Returns the height of the tree (0 when empty)
+    public int height() {
+        return height(root);
+    }
+
+    // Returns the number of rotations performed to keep the tree balanced
+    public long rotations() {
+        return rotations;
+    }
+
+    // Returns the number of key comparisons made walking down from the root, and the number of such walks
+    // Their ratio is the average search path length, which grows with the height of a degenerate tree
+    public long comparisons() {
+        return comparisons.sum();
+    }
+    public long descents() {
+        return descents.sum();
+    }
+
+    // Returns the least height a tree with this many distinct keys could have, floor(log2(nodes)) + 1
+    public int optimalHeight() {
+        return 32 - Integer.numberOfLeadingZeros(nodes);
+    }
+
+    // Records one descent that made 'compared' comparisons; descents count locally and record once,
+    // so concurrent readers only touch the shared counters at the end of each lookup
+    private void recordDescent(int compared) {
+        comparisons.add(compared);
+        descents.increment();
+    }
+
     // Implement the insert method
+    // Walks down once, comparing against each node a single time, then links a new leaf
+    // An element equal to an existing key joins that node's bucket instead of creating a new node
     public void insert(T obj){
-        root = insertHelper(root, obj);
+        Node<T> parent = null;
+        Node<T> current = root;
+        int cmp = 0;
+        int compared = 0;
+        while (current != null) {
+            cmp = comparator.compare(current.getElement(), obj);
+            compared++;
+            if (cmp == 0) {
+                recordDescent(compared);
+                current.add(obj);
+                size++;
+                modCount++;
+                updateSizesUpwards(current);
+                return;
+            }
+            parent = current;
+            // Smaller elements go left, greater elements go right
+            current = cmp > 0 ? current.getLeft() : current.getRight();
+        }
+        recordDescent(compared);
+
+        Node<T> node = new Node<T>(obj, null, null);
+        node.setParent(parent);
+        if (parent == null) {
+            root = node; // The tree was empty
+        } else if (cmp > 0) {
+            parent.setLeft(node);
+        } else {
+            parent.setRight(node);
+        }
         size++;
+        nodes++;
+        modCount++;
+        fixUpwards(parent);
     }
-    // Recursive helper function to insert 'obj' into the subtree rooted at 'root'
-    public Node<T> insertHelper(Node<T> root, T obj){
-        if (root == null) {
-            size++;
-            // If root is null, we have reached the correct position for insertion
-            return new Node<T>(obj, null, null);
-        }else if(root.getElement().compareTo(obj) > 0){
-            // If obj is smaller than the current node, insert into the left subtree
-            root.setLeft(insertHelper(root.getLeft(), obj));
-        }else{
-            // If obj is greater, insert into the right subtree
-            root.setRight(insertHelper(root.getRight(), obj));
+
+    // Adds every element of 'elements' to the tree and rebuilds it perfectly balanced
+    // Sorts once, groups equal keys into buckets and links the nodes bottom-up in linear time
+    public void bulkLoad(Collection<? extends T> elements) {
+        List<T> all = new ArrayList<>(size + elements.size());
+        forEach(all::add); // Already in order, so the sort below only has to merge the new run
+        all.addAll(elements);
+        all.sort(comparator); // Stable, so equal keys keep their insertion order
+
+        List<Node<T>> nodes = new ArrayList<>();
+        Node<T> last = null;
+        for (T obj : all) {
+            if (last != null && comparator.compare(last.getElement(), obj) == 0) {
+                last.add(obj); // Same key as the previous element
+            } else {
+                last = new Node<T>(obj, null, null);
+                nodes.add(last);
+            }
         }
-        return root; // Return the updated root node
+        root = buildBalanced(nodes, 0, nodes.size() - 1, null);
+        this.nodes = nodes.size();
+        size = all.size();
+        modCount++;
     }
 
+    // Writes the tree to 'out' as its in-order sequence of nodes, each as a bucket count followed by its elements
+    // A count of 0 ends the image
+    public void save(DataOutput out, ElementWriter<? super T> writer) throws IOException {
+        for (Node<T> node = getMin(root); node != null; node = successor(node)) {
+            out.writeInt(node.count());
+            for (int i = 0; i < node.count(); i++) {
+                writer.write(out, node.get(i));
+            }
+        }
+        out.writeInt(0);
+    }
+
+    // Replaces the contents of the tree with an image written by save()
+    // The image is already in order, so the tree is rebuilt balanced in linear time without any comparisons
+    public void load(DataInput in, ElementReader<? extends T> reader) throws IOException {
+        List<Node<T>> nodes = new ArrayList<>();
+        int elements = 0;
+        for (int count = in.readInt(); count > 0; count = in.readInt()) {
+            Node<T> node = new Node<T>(reader.read(in), null, null);
+            for (int i = 1; i < count; i++) {
+                node.add(reader.read(in));
+            }
+            nodes.add(node);
+            elements += count;
+        }
+        root = buildBalanced(nodes, 0, nodes.size() - 1, null);
+        this.nodes = nodes.size();
+        size = elements;
+        modCount++;
+    }
+
+    // Writes one element of a saved tree
+    public interface ElementWriter<T> {
+        void write(DataOutput out, T obj) throws IOException;
+    }
+
+    // Reads back one element written by an ElementWriter
+    public interface ElementReader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    // Links the already ordered nodes[lo..hi] into a balanced subtree under 'parent' and returns its root
+    private Node<T> buildBalanced(List<Node<T>> nodes, int lo, int hi, Node<T> parent) {
+        if (lo > hi) return null;
+        int mid = (lo + hi) >>> 1;
+        Node<T> node = nodes.get(mid);
+        node.setParent(parent);
+        node.setLeft(buildBalanced(nodes, lo, mid - 1, node));
+        node.setRight(buildBalanced(nodes, mid + 1, hi, node));
+        updateHeight(node);
+        return node;
+    }
 
     // Implement the remove method
+    // Finds the node for obj's key in one descent, then removes the bucket entry equal to obj
     public T remove(T obj){
-        T temp = searchHelper(root, obj); // Search for the element to be removed
-        if (temp != null) {
-            root = removeHelper(root, obj); // Recursively remove the element
-            size--;
+        Node<T> node = findNode(obj);
+        if (node == null) return null; // Nothing to remove
+
+        int index = node.indexOf(obj);
+        if (index < 0) return null; // Same key, but a different element
+
+        T removed = node.get(index);
+        size--;
+        modCount++;
+        if (node.count() > 1) {
+            node.removeAt(index); // Other elements share the key, so the node stays
+            updateSizesUpwards(node);
+            return removed;
+        }
+
+        if (node.getLeft() != null && node.getRight() != null) {
+            // Node has two children: move the maximum of the left subtree up and unlink that node instead
+            Node<T> max = getMax(node.getLeft());
+            node.moveElementsFrom(max);
+            node = max;
+        }
+
+        // 'node' now has at most one child, which takes its place
+        Node<T> child = node.getLeft() != null ? node.getLeft() : node.getRight();
+        Node<T> parent = node.getParent();
+        replaceChild(parent, node, child);
+        nodes--;
+        fixUpwards(parent);
+        return removed; // Return the removed element
+    }
+
+    // Implement the search method
+    // Returns the stored element equal to obj, or null if it is not in the tree
+    public T search(T obj){
+        Node<T> node = findNode(obj);
+        if (node == null) return null;
+        int index = node.indexOf(obj);
+        return index < 0 ? null : node.get(index);
+    }
+
+    // Returns every element between 'lo' and 'hi' (inclusive) in order
+    // Descends once to the first key >= lo, then walks successors until a key passes hi
+    public List<T> rangeSearch(T lo, T hi) {
+        List<T> result = new ArrayList<>();
+        for (Node<T> node = ceilingNode(lo); node != null; node = successor(node)) {
+            if (comparator.compare(node.getElement(), hi) > 0) break;
+            addElements(node, result);
         }
-        return temp; // Return the removed element, or null if not found
+        return result;
+    }
+
+    // Returns the greatest element whose key is <= obj, or null if there is none
+    public T floor(T obj) {
+        Node<T> node = floorNode(obj);
+        return node == null ? null : node.getElement();
     }
 
-    // Recursive helper function to remove 'obj' from the subtree rooted at 'root'
-    public Node<T> removeHelper(Node<T> root, T obj){
-        if (root == null) return null;
+    // Returns the least element whose key is >= obj, or null if there is none
+    public T ceiling(T obj) {
+        Node<T> node = ceilingNode(obj);
+        return node == null ? null : node.getElement();
+    }
 
-        if (root.getElement().compareTo(obj) > 0){
-            // If obj is smaller, continue searching in the left subtree
-            root.setLeft(removeHelper(root.getLeft(), obj));
-        }else if (root.getElement().compareTo(obj) < 0){
-            // If obj is greater, continue searching in the right subtree
-            root.setRight(removeHelper(root.getRight(), obj));
-        }else{
-            if (root.getLeft() == null){
-                return root.getRight(); // If no left child, replace with right subtree
-            }else if (root.getRight() == null){
-                return root.getLeft(); // If no right child, replace with left subtree
-            }else{
-                // Node has two children: find the maximum node in the left subtree
-                Node<T> temp = getMax(root.getLeft());
-                // Replace current node's value with the maximum value
-                root.setElement(temp.getElement());
-                // Recursively remove the maximum node from the left subtree
-                root.setLeft(removeHelper(root.getLeft(), temp.getElement()));
+    // Returns the k greatest elements, greatest first
+    public List<T> topK(int k) {
+        return topK(k, getMax(root));
+    }
+
+    // Returns the k greatest elements whose key is <= hi, greatest first
+    public List<T> topK(int k, T hi) {
+        return topK(k, floorNode(hi));
+    }
+
+    // Collects up to k elements walking predecessors from 'start'
+    private List<T> topK(int k, Node<T> start) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(k, size)));
+        for (Node<T> node = start; node != null && result.size() < k; node = predecessor(node)) {
+            for (int i = 0; i < node.count() && result.size() < k; i++) {
+                result.add(node.get(i));
             }
         }
-        return root; // Return the updated root
+        return result;
     }
 
-    // Implement the search method
-    public T search(T obj){ return searchHelper(root, obj); }
+    // Returns the k least elements, least first
+    public List<T> bottomK(int k) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(k, size)));
+        for (Node<T> node = getMin(root); node != null && result.size() < k; node = successor(node)) {
+            for (int i = 0; i < node.count() && result.size() < k; i++) {
+                result.add(node.get(i));
+            }
+        }
+        return result;
+    }
+
+    // Subtree sizes make rank a single descent
+    @Override
+    public boolean hasFastRank() {
+        return true;
+    }
+
+    // Returns the number of elements whose key is strictly less than obj's
+    public int rank(T obj) {
+        int rank = 0;
+        int compared = 0;
+        Node<T> current = root;
+        while (current != null) {
+            int cmp = comparator.compare(current.getElement(), obj);
+            compared++;
+            if (cmp < 0) {
+                // This node and its whole left subtree come before obj
+                rank += subtreeSize(current.getLeft()) + current.count();
+                current = current.getRight();
+            } else if (cmp > 0) {
+                current = current.getLeft();
+            } else {
+                rank += subtreeSize(current.getLeft());
+                break;
+            }
+        }
+        recordDescent(compared);
+        return rank;
+    }
+
+    // Returns the element at position i (0-based) of the in-order sequence, or null if out of range
+    public T select(int i) {
+        if (i < 0 || i >= size) return null;
+        Node<T> current = root;
+        while (current != null) {
+            int leftSize = subtreeSize(current.getLeft());
+            if (i < leftSize) {
+                current = current.getLeft();
+            } else if (i < leftSize + current.count()) {
+                return current.get(i - leftSize);
+            } else {
+                i -= leftSize + current.count();
+                current = current.getRight();
+            }
+        }
+        return null;
+    }
+
+    // Returns the percentile rank of obj's key: the share of elements below it, counting ties as half
+    public double percentile(T obj) {
+        return percentile(obj, size);
+    }
+
+    // Returns the percentile rank of obj's key among the lowest 'population' elements
+    public double percentile(T obj, int population) {
+        if (population <= 0) return 0;
+        Node<T> node = findNode(obj);
+        int ties = node == null ? 0 : node.count();
+        return 100.0 * (rank(obj) + ties / 2.0) / population;
+    }
+
+    // Appends every element held by 'node' to 'result'
+    private void addElements(Node<T> node, List<T> result) {
+        for (int i = 0; i < node.count(); i++) {
+            result.add(node.get(i));
+        }
+    }
+
+    // Returns the node with the greatest key <= obj, or null
+    private Node<T> floorNode(T obj) {
+        Node<T> best = null;
+        int compared = 0;
+        Node<T> current = root;
+        while (current != null) {
+            int cmp = comparator.compare(current.getElement(), obj);
+            compared++;
+            if (cmp == 0) {
+                best = current;
+                break;
+            }
+            if (cmp < 0) {
+                best = current; // Candidate floor, look for a larger one on the right
+                current = current.getRight();
+            } else {
+                current = current.getLeft();
+            }
+        }
+        recordDescent(compared);
+        return best;
+    }
 
-    // Recursive helper function to search for 'obj' in the subtree rooted at 'root'
-    public T searchHelper(Node<T> root, T obj){
-        if (root == null) return null;
-        if (root.getElement().compareTo(obj) > 0){
-            // If obj is smaller, search in the left subtree
-            return searchHelper(root.getLeft(), obj);
+    // Returns the node with the least key >= obj, or null
+    private Node<T> ceilingNode(T obj) {
+        Node<T> best = null;
+        int compared = 0;
+        Node<T> current = root;
+        while (current != null) {
+            int cmp = comparator.compare(current.getElement(), obj);
+            compared++;
+            if (cmp == 0) {
+                best = current;
+                break;
+            }
+            if (cmp > 0) {
+                best = current; // Candidate ceiling, look for a smaller one on the left
+                current = current.getLeft();
+            } else {
+                current = current.getRight();
+            }
         }
-        else if (root.getElement().compareTo(obj) < 0){
-            // If obj is greater, search in the right subtree
-            return searchHelper(root.getRight(), obj);
-        }else{
-            // If obj is equal, return the current node's element (found)
-            return root.getElement();
+        recordDescent(compared);
+        return best;
+    }
+
+    // Iterative descent returning the node whose key compares equal to 'obj', or null
+    private Node<T> findNode(T obj){
+        Node<T> current = root;
+        int compared = 0;
+        while (current != null) {
+            int cmp = comparator.compare(current.getElement(), obj);
+            compared++;
+            if (cmp == 0) break; // Found
+            // If obj is smaller, search the left subtree, otherwise the right subtree
+            current = cmp > 0 ? current.getLeft() : current.getRight();
         }
+        recordDescent(compared);
+        return current;
+    }
+
+    // Puts 'child' where 'node' hangs under 'parent' (or at the root when 'parent' is null)
+    private void replaceChild(Node<T> parent, Node<T> node, Node<T> child) {
+        if (parent == null) {
+            root = child;
+        } else if (parent.getLeft() == node) {
+            parent.setLeft(child);
+        } else {
+            parent.setRight(child);
+        }
+        if (child != null) child.setParent(parent);
+    }
+
+    // Walks from 'node' towards the root refreshing heights and rebalancing
+    // Once a subtree keeps its old height nothing above it needs rebalancing, so only sizes are refreshed
+    private void fixUpwards(Node<T> node) {
+        while (node != null) {
+            int before = node.getHeight();
+            Node<T> subtree = rebalance(node);
+            node = subtree.getParent();
+            if (subtree.getHeight() == before) break;
+        }
+        updateSizesUpwards(node);
+    }
+
+    // Recomputes the subtree size of 'node' and each of its ancestors
+    private void updateSizesUpwards(Node<T> node) {
+        for (; node != null; node = node.getParent()) {
+            updateSize(node);
+        }
+    }
+
+    // Returns the number of elements in the subtree rooted at 'node', treating null as 0
+    private int subtreeSize(Node<T> node) {
+        return node == null ? 0 : node.getSubtreeSize();
+    }
+
+    // Recomputes the element count of 'node' from its bucket and children
+    private void updateSize(Node<T> node) {
+        node.setSubtreeSize(node.count() + subtreeSize(node.getLeft()) + subtreeSize(node.getRight()));
+    }
+
+    // Returns the height of the subtree rooted at 'node', treating null as 0
+    private int height(Node<T> node) {
+        return node == null ? 0 : node.getHeight();
+    }
+
+    // Recomputes the height and element count of 'node' from its children
+    private void updateHeight(Node<T> node) {
+        node.setHeight(1 + Math.max(height(node.getLeft()), height(node.getRight())));
+        updateSize(node);
+    }
+
+    // Refreshes the height and size of 'node' and, in balanced mode, restores the AVL property
+    // Returns the root of the (possibly rotated) subtree
+    private Node<T> rebalance(Node<T> node) {
+        updateHeight(node);
+        if (!balanced) return node;
+
+        int balance = height(node.getLeft()) - height(node.getRight());
+        if (balance > 1) {
+            // Left heavy: a left-right case needs the left child rotated first
+            if (height(node.getLeft().getLeft()) < height(node.getLeft().getRight())) {
+                rotateLeft(node.getLeft());
+            }
+            return rotateRight(node);
+        } else if (balance < -1) {
+            // Right heavy: a right-left case needs the right child rotated first
+            if (height(node.getRight().getRight()) < height(node.getRight().getLeft())) {
+                rotateRight(node.getRight());
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    // Rotates the subtree rooted at 'node' to the right and returns the new subtree root
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.getLeft();
+        node.setLeft(left.getRight());
+        if (left.getRight() != null) left.getRight().setParent(node);
+        replaceChild(node.getParent(), node, left);
+        left.setRight(node);
+        node.setParent(left);
+        updateHeight(node);
+        updateHeight(left);
+        rotations++;
+        return left;
+    }
+
+    // Rotates the subtree rooted at 'node' to the left and returns the new subtree root
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.getRight();
+        node.setRight(right.getLeft());
+        if (right.getLeft() != null) right.getLeft().setParent(node);
+        replaceChild(node.getParent(), node, right);
+        right.setLeft(node);
+        node.setParent(right);
+        updateHeight(node);
+        updateHeight(right);
+        rotations++;
+        return right;
     }
 
     // In-Order Traversal and Printing
     public void print(){
-        inOrderHelper(root);
-        System.out.println();
+        try {
+            print(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // PrintStream never throws
+        }
     }
 
-    // Recursive helper function for in-order traversal
-    private void inOrderHelper(Node<T> obj){
-        if (obj == null) return;
+    // In-Order Traversal printing one element per line to 'out', followed by a blank line
+    public void print(Appendable out) throws IOException {
+        print(out, 0, size, (element, sb) -> sb.append(element));
+    }
+
+    // Prints up to 'limit' elements starting at in-order position 'offset', one per line, followed by a blank line
+    // 'format' appends each element to a reusable buffer that is handed to 'out' in large chunks, so printing
+    // builds no String per element. The first element is found by rank in O(log n) and the rest by walking
+    // successors through the parent links, so no stack is needed however deep the tree is
+    public void print(Appendable out, int offset, int limit, BiConsumer<? super T, StringBuilder> format)
+            throws IOException {
+        int from = Math.min(Math.max(offset, 0), size);
+        int to = (int) Math.min(size, (long) from + Math.max(limit, 0));
+        String lineSeparator = System.lineSeparator();
+        StringBuilder buffer = new StringBuilder(PRINT_BUFFER + 1024);
+        Consumer<T> row = element -> format.accept(element, buffer);
 
-        inOrderHelper(obj.getLeft());
-        System.out.println(obj.getElement());
-        inOrderHelper(obj.getRight());
+        Spliterator<T> elements = new BSTSpliterator(from, to, modCount);
+        while (elements.tryAdvance(row)) {
+            buffer.append(lineSeparator);
+            if (buffer.length() >= PRINT_BUFFER) {
+                out.append(buffer);
+                buffer.setLength(0);
+            }
+        }
+        buffer.append(lineSeparator);
+        out.append(buffer);
     }
 
+    // Performs 'action' on every element in order
+    // Like print, this is a stack-free successor walk using O(1) extra space and no allocation
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (Node<T> node = getMin(root); node != null; node = successor(node)) {
+            for (int i = 0; i < node.count(); i++) {
+                action.accept(node.get(i));
+            }
+        }
+    }
 
     // Implement the iterator method
-    public Iterator iterator(){
+    @Override
+    public Iterator<T> iterator(){
         return new BSTIterator();
     }
 
+    // Returns a spliterator that splits by in-order position, so the tree can feed parallel streams
+    @Override
+    public Spliterator<T> spliterator() {
+        return new BSTSpliterator(0, size, modCount);
+    }
+
+    // Returns the elements in order as a stream, optionally parallel
+    public Stream<T> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
 
     // Implement the BSTIterator class
+    // A lazy in-order iterator: the stack only ever holds the path of nodes still to be visited
     private class BSTIterator implements Iterator<T>{
-        private Node<T> nextNode = root;
-        private int size;
-        private Stack<Node<T>> nodeStack = new Stack<Node<T>>();
+        private Node<T>[] nodeStack; // Ancestors still to visit, never deeper than the tree's height
+        private int depth; // Number of nodes on the stack
+        private int offset; // Next bucket entry to return from the node on top of the stack
+        private final int expectedModCount = modCount; // Modification count the iterator was created at
+
+        // Start at the leftmost node
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        BSTIterator() {
+            nodeStack = (Node<T>[]) new Node[Math.max(height(), 1)];
+            depth = 0;
+            offset = 0;
+            goLeftFrom(root);
+        }
 
         // Check if there is a next node to visit
         @Override
-        public boolean hasNext() { return nextNode != null; }
-
-        // Prepare an in-order traversal starting from the root
-        public void inorder_iterator(){
-            if(root != null){
-                nodeStack = new Stack<Node<T>>();
-                goLeftFrom(root);
-            }
-        }
+        public boolean hasNext() { return depth > 0; }
 
-        // Helper function to traverse the leftmost path from a given node
+        // Helper function to push the leftmost path from a given node, including the node itself
         private void goLeftFrom(Node<T> obj){
-            while (obj.getLeft() != null){
-                nodeStack.push(obj);
+            while (obj != null){
+                if (depth == nodeStack.length) {
+                    nodeStack = Arrays.copyOf(nodeStack, depth * 2); // Only grows if the tree is modified
+                }
+                nodeStack[depth++] = obj;
                 obj = obj.getLeft();
             }
         }
@@ -175,19 +715,97 @@ class BST<T extends Comparable<T>> {
         // Return the next element in the traversal
         @Override
         public T next() {
-            Node<T> current = null; // The current node being visited
-            if (!nodeStack.empty()) {
-                current = nodeStack.peek();
-                nodeStack.pop();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (depth == 0) throw new NoSuchElementException();
+
+            Node<T> current = nodeStack[depth - 1]; // The current node being visited
+            T element = current.get(offset++);
+            if (offset == current.count()) {
+                // Done with this node: pop it and visit the leftmost path of its right subtree
+                nodeStack[--depth] = null;
+                offset = 0;
+                goLeftFrom(current.getRight());
+            }
+            return element; // Return the element of the current node
+        }
+    }
+
+    // Spliterator over the in-order positions [index, fence)
+    // Splitting halves the range, and each half finds its first node with an O(log n) rank descent
+    private class BSTSpliterator implements Spliterator<T> {
+        private int index; // In-order position of the next element
+        private final int fence; // One past the last position covered
+        private final int expectedModCount; // Modification count the spliterator was created at
+        private Node<T> node; // Node holding position 'index', located lazily
+        private int offset; // Bucket entry of 'node' at position 'index'
 
-                if (current.getRight() != null) { // If there is a right subtree, visit its leftmost path
-                    goLeftFrom(current.getRight());
+        BSTSpliterator(int index, int fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        // Finds the node and bucket entry at position 'index'
+        private void locate() {
+            int i = index;
+            Node<T> current = root;
+            while (true) {
+                int leftSize = subtreeSize(current.getLeft());
+                if (i < leftSize) {
+                    current = current.getLeft();
+                } else if (i < leftSize + current.count()) {
+                    node = current;
+                    offset = i - leftSize;
+                    return;
+                } else {
+                    i -= leftSize + current.count();
+                    current = current.getRight();
                 }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= fence) return false;
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (node == null) locate();
 
+            T element = node.get(offset++);
+            index++;
+            if (offset == node.count()) {
+                node = index < fence ? successor(node) : null;
+                offset = 0;
             }
-            return current.getElement(); // Return the element of the current node
+            action.accept(element);
+            return true;
         }
 
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid - index < 2) return null; // Too small to be worth splitting
+            BSTSpliterator prefix = new BSTSpliterator(index, mid, expectedModCount);
+            prefix.node = node; // The prefix keeps any position already located
+            prefix.offset = offset;
+            index = mid;
+            node = null;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | SIZED | SUBSIZED | NONNULL;
+        }
+
+        // Natural ordering is reported as null, as the Spliterator contract requires
+        @Override
+        public Comparator<? super T> getComparator() {
+            return comparator == Comparator.naturalOrder() ? null : comparator;
+        }
     }
 }
-
@@ -1,167 +1,229 @@
 /**
  * @file: Candidate.java
  * @description: This program creates a custom Candidate class that stores all the combine information
- * of any athlete that had participated in the NFL combine from 1987 to 2018
+ * of any athlete that had participated in the NFL combine from 1987 to 2018. A Candidate is a
+ * lightweight view of one row of a CandidateTable
  * @author: Tucker Corwen
  * @date: September 25, 2024
  */
 
+import java.util.Comparator;
+import java.util.Objects;
+
 public class Candidate implements Comparable<Candidate> {
 
-    // Declare metrics for the candidate
-    float year;                // Year of the candidate's draft or event
-    String name;               // Candidate's name
-    String college;            // Candidate's college
-    String pos;                // Candidate's playing position
-    float height_in;           // Candidate's height in inches
-    float weight_lbs;          // Candidate's weight in pounds
-    float hand_size_in;        // Candidate's hand size in inches
-    float arm_length_in;       // Candidate's arm length in inches
-    float wonderlic;           // Wonderlic test score
-    float forty_yard;          // Time for 40-yard dash (in seconds)
-    float bench_press;         // Bench press weight (in pounds)
-    float vert_leap_in;        // Vertical leap height in inches
-    float broad_jump_in;       // Broad jump distance in inches
-    float shuttle;             // Time for shuttle run (in seconds)
-    float three_cone;          // Time for three-cone drill (in seconds)
-    float sixty_yd_shuttle;    // Time for 60-yard shuttle (in seconds)
-
-    // Constructor initializes all attributes to default values
-    Candidate(String[] metrics){
-        this.year = 0;
-        this.name = null;
-        this.college = null;
-        this.pos = null;
-        this.height_in = 0;
-        this.weight_lbs = 0;
-        this.hand_size_in = 0;
-        this.arm_length_in = 0;
-        this.wonderlic = 0;
-        this.forty_yard = 0;
-        this.bench_press = 0;
-        this.vert_leap_in = 0;
-        this.broad_jump_in = 0;
-        this.shuttle = 0;
-        this.three_cone = 0;
-        this.sixty_yd_shuttle = 0;
+    // The columnar table holding this candidate's metrics, and the row they live in
+    private final CandidateTable table;
+    private final int row;
+
+    // Default constructor creates a standalone candidate in its own one-row table,
+    // with no strings and every metric missing (NaN)
+    Candidate(){
+        this.table = new CandidateTable(1);
+        this.row = table.addRow();
+    }
+
+    // Constructor that views an existing row of a table
+    Candidate(CandidateTable table, int row){
+        this.table = table;
+        this.row = row;
+    }
+
+    // Returns the table this candidate is stored in
+    public CandidateTable getTable(){
+        return table;
+    }
+
+    // Returns the row of this candidate in its table
+    public int getRow(){
+        return row;
     }
 
     // Setters to modify candidate metrics
     public void setYear(float year){
-        this.year = year;
+        table.setYear(row, year);
     }
     public void setName(String name){
-        this.name = name;
+        table.setName(row, name);
     }
     public void setCollege(String college){
-        this.college = college;
+        table.setCollege(row, college);
     }
     public void setPos(String pos){
-        this.pos = pos;
+        table.setPos(row, pos);
     }
     public void setHeight_in(float height_in){
-        this.height_in = height_in;
+        table.setMetric(CandidateTable.HEIGHT_IN, row, height_in);
     }
     public void setWeight_lbs(float weight_lbs){
-        this.weight_lbs = weight_lbs;
+        table.setMetric(CandidateTable.WEIGHT_LBS, row, weight_lbs);
     }
     public void setHand_size_in(float hand_size_in){
-        this.hand_size_in = hand_size_in;
+        table.setMetric(CandidateTable.HAND_SIZE_IN, row, hand_size_in);
     }
     public void setArm_length_in(float arm_length_in){
-        this.arm_length_in = arm_length_in;
+        table.setMetric(CandidateTable.ARM_LENGTH_IN, row, arm_length_in);
     }
     public void setWonderlic(float wonderlic){
-        this.wonderlic = wonderlic;
+        table.setMetric(CandidateTable.WONDERLIC, row, wonderlic);
     }
     public void setForty_yard(float forty_yard){
-        this.forty_yard = forty_yard;
+        table.setMetric(CandidateTable.FORTY_YARD, row, forty_yard);
     }
     public void setBench_press(float bench_press){
-        this.bench_press = bench_press;
+        table.setMetric(CandidateTable.BENCH_PRESS, row, bench_press);
     }
     public void setVert_leap_in(float vert_leap_in){
-        this.vert_leap_in = vert_leap_in;
+        table.setMetric(CandidateTable.VERT_LEAP_IN, row, vert_leap_in);
     }
     public void setBroad_jump_in(float broad_jump_in){
-        this.broad_jump_in = broad_jump_in;
+        table.setMetric(CandidateTable.BROAD_JUMP_IN, row, broad_jump_in);
     }
     public void setShuttle(float shuttle){
-        this.shuttle = shuttle;
+        table.setMetric(CandidateTable.SHUTTLE, row, shuttle);
     }
     public void setThree_cone(float three_cone){
-        this.three_cone = three_cone;
+        table.setMetric(CandidateTable.THREE_CONE, row, three_cone);
     }
     public void setSixty_yd_shuttle(float sixty_yd_shuttle){
-        this.sixty_yd_shuttle = sixty_yd_shuttle;
+        table.setMetric(CandidateTable.SIXTY_YD_SHUTTLE, row, sixty_yd_shuttle);
     }
 
     // Getters to retrieve candidate metrics
     public float getYear(){
-        return this.year;
+        return table.getYear(row);
     }
     public String getName(){
-        return this.name;
+        return table.getName(row);
     }
     public String getCollege(){
-        return this.college;
+        return table.getCollege(row);
     }
     public String getPos(){
-        return this.pos;
+        return table.getPos(row);
     }
     public float getHeight_in(){
-        return this.height_in;
+        return table.getMetric(CandidateTable.HEIGHT_IN, row);
     }
     public float getWeight_lbs(){
-        return this.weight_lbs;
+        return table.getMetric(CandidateTable.WEIGHT_LBS, row);
     }
     public float getHand_size_in(){
-        return this.hand_size_in;
+        return table.getMetric(CandidateTable.HAND_SIZE_IN, row);
     }
     public float getArm_length_in(){
-        return this.arm_length_in;
+        return table.getMetric(CandidateTable.ARM_LENGTH_IN, row);
     }
     public float getWonderlic(){
-        return this.wonderlic;
+        return table.getMetric(CandidateTable.WONDERLIC, row);
     }
     public float getForty_yard(){
-        return this.forty_yard;
+        return table.getMetric(CandidateTable.FORTY_YARD, row);
     }
     public float getBench_press(){
-        return this.bench_press;
+        return table.getMetric(CandidateTable.BENCH_PRESS, row);
     }
     public float getVert_leap_in(){
-        return this.vert_leap_in;
+        return table.getMetric(CandidateTable.VERT_LEAP_IN, row);
     }
     public float getBroad_jump_in(){
-        return this.broad_jump_in;
+        return table.getMetric(CandidateTable.BROAD_JUMP_IN, row);
     }
     public float getShuttle(){
-        return this.shuttle;
+        return table.getMetric(CandidateTable.SHUTTLE, row);
     }
     public float getThree_cone(){
-        return this.three_cone;
+        return table.getMetric(CandidateTable.THREE_CONE, row);
     }
     public float getSixty_yd_shuttle(){
-        return this.sixty_yd_shuttle;
+        return table.getMetric(CandidateTable.SIXTY_YD_SHUTTLE, row);
     }
 
+    // Display labels of the metric columns, indexed by column id
+    private static final String[] METRIC_LABELS = {
+            "Height(in)", "Weight(lbs)", "Hand Size(in)", "Arm Length(in)", "Wonderlic", "Forty Yard Dash(s)",
+            "Bench Press(lbs)", "Vertical Leap(in)", "Broad Jump(in)", "Shuttle(s)", "Three Cone(s)", "Sixty Yard Dash(s)"
+    };
+
+    // Column names written by appendCsv, matching the combine dataset
+    public static final String CSV_HEADER = "year,name,college,pos,height_in,weight_lbs,hand_size_in,arm_length_in,"
+            + "wonderlic,40_yard,bench_press,vert_leap_in,broad_jump_in,shuttle,3cone,60yd_shuttle";
+
     // Override toString() to return a string of all candidate information
     @Override
     public String toString(){
-        //Make year number int
-        int year = (int)this.getYear();
+        return appendTo(new StringBuilder(256)).toString();
+    }
+
+    // Appends all candidate information to 'sb' in the toString() format and returns 'sb'
+    public StringBuilder appendTo(StringBuilder sb){
+        sb.append(getName()).append(": Year - ").append((int) getYear())
+                .append(", College - ").append(getCollege()).append(", Position - ").append(getPos());
+        for (int column = 0; column < METRIC_LABELS.length; column++) {
+            sb.append(", ").append(METRIC_LABELS[column]).append(" - ");
+            appendMetric(sb, getMetric(column), "N/A");
+        }
+        return sb;
+    }
+
+    // Appends a one-line summary (name, year, position, college and weight) to 'sb' and returns 'sb'
+    public StringBuilder appendCompact(StringBuilder sb){
+        sb.append(getName()).append(" (").append((int) getYear()).append(' ').append(getPos())
+                .append(", ").append(getCollege()).append(") ");
+        appendMetric(sb, getWeight_lbs(), "N/A");
+        return sb.append(" lbs");
+    }
+
+    // Appends this candidate as a csv record in CSV_HEADER column order to 'sb' and returns 'sb'
+    // Missing metrics are left empty and fields holding commas or quotes are quoted
+    public StringBuilder appendCsv(StringBuilder sb){
+        sb.append((int) getYear()).append(',');
+        appendCsvField(sb, getName()).append(',');
+        appendCsvField(sb, getCollege()).append(',');
+        appendCsvField(sb, getPos());
+        for (int column = 0; column < CandidateTable.METRIC_NAMES.length; column++) {
+            sb.append(',');
+            appendMetric(sb, getMetric(column), "");
+        }
+        return sb;
+    }
+
+    // Appends a metric without building a String, or 'missing' when it was not measured
+    private static void appendMetric(StringBuilder sb, float metric, String missing){
+        if (Float.isNaN(metric)) {
+            sb.append(missing);
+        } else {
+            sb.append(metric);
+        }
+    }
+
+    // Appends a csv field, quoting it and doubling its quotes when it holds a comma, quote or line break
+    private static StringBuilder appendCsvField(StringBuilder sb, String value){
+        if (value == null) return sb;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) return sb.append(value);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') sb.append('"');
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
 
-        return name + ": " + "Year - " + year + ", College - " + college + ", Position - " + pos
-                + ", Height(in) - " + height_in + ", Weight(lbs) - " + weight_lbs
-                + ", Hand Size(in) - " + hand_size_in + ", Arm Length(in) - " + arm_length_in
-                + ", Wonderlic - " + wonderlic + ", Forty Yard Dash(s) - " + forty_yard
-                + ", Bench Press(lbs) - " + bench_press + ", Vertical Leap(in) - " + vert_leap_in
-                + ", Broad Jump(in) - " + broad_jump_in + ", Shuttle(s) - " + shuttle
-                + ", Three Cone(s) - " + three_cone + ", Sixty Yard Dash(s) - " + sixty_yd_shuttle;
+    // Formats a metric for display, showing N/A when it was not measured
+    static String format(float metric){
+        return Float.isNaN(metric) ? "N/A" : String.valueOf(metric);
     }
 
-    // Check if two Candidate objects are equal based on type
+    // Check if two Candidate objects describe the same player
+    // Views of one table are the same player only when they are the same row; across tables the name, year,
+    // college and position must match. Players of equal weight compare as 0, so this is what tells them
+    // apart inside the BST
     @Override
     public boolean equals(Object o){
         if (this == o) return true;          // Check if both references point to the same object
@@ -169,19 +231,57 @@ public class Candidate implements Comparable<Candidate> {
             return false;
         }
 
-        return false;
+        Candidate other = (Candidate) o;
+        if (table == other.table) return row == other.row; // Rows of one table are distinct players
+        return getYear() == other.getYear() && Objects.equals(getName(), other.getName())
+                && Objects.equals(getCollege(), other.getCollege()) && Objects.equals(getPos(), other.getPos());
+    }
+
+    // Hash code consistent with equals
+    @Override
+    public int hashCode(){
+        return Objects.hash(getName(), getYear(), getCollege(), getPos());
+    }
+
+    // Comparators ordering candidates by each metric column, indexed by column id
+    private static final Comparator<Candidate>[] METRIC_COMPARATORS = createMetricComparators();
+
+    // Builds one comparator per metric column
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Candidate>[] createMetricComparators(){
+        Comparator<Candidate>[] comparators = new Comparator[CandidateTable.METRIC_NAMES.length];
+        for (int i = 0; i < comparators.length; i++) {
+            final int column = i;
+            comparators[i] = (a, b) -> Float.compare(a.getMetric(column), b.getMetric(column));
+        }
+        return comparators;
+    }
+
+    // Returns the comparator ordering candidates by a metric column
+    public static Comparator<Candidate> byMetric(int column){
+        return METRIC_COMPARATORS[column];
+    }
+
+    // Returns the comparator ordering candidates by the named metric, or null if there is no such metric
+    public static Comparator<Candidate> byMetric(String metricName){
+        int column = CandidateTable.metricColumn(metricName);
+        return column < 0 ? null : METRIC_COMPARATORS[column];
+    }
+
+    // Sets the value of a metric column for this candidate
+    public void setMetric(int column, float value){
+        table.setMetric(column, row, value);
+    }
+
+    // Returns the value of a metric column for this candidate
+    public float getMetric(int column){
+        return table.getMetric(column, row);
     }
 
     // Implement compareTo() method for sorting based on weight in pounds
+    // Uses Float.compare so a missing (NaN) weight sorts after every measured weight
     @Override
     public int compareTo(Candidate candidate){
-        if(this.weight_lbs == candidate.getWeight_lbs()){
-            return 0;  // Both candidates have the same weight
-        } else if(this.weight_lbs > candidate.getWeight_lbs()){
-            return 1;  // This candidate is heavier
-        } else if (this.weight_lbs < candidate.getWeight_lbs()) {
-            return -1; // This candidate is lighter
-        }
-        return 0; // Fallback case (should never be reached)
+        return Float.compare(this.getWeight_lbs(), candidate.getWeight_lbs());
     }
 }
@@ -0,0 +1,220 @@
+/**
+ * @file: CandidateSnapshot.java
+ * @description: This program implements a compact binary snapshot of a CandidateTable. The file holds the
+ * string dictionaries followed by fixed-width columns. It is reopened through a memory mapping and bulk-copied
+ * into the table's heap arrays, so startup skips csv parsing; the secondary indexes are still built afterwards
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+
+// Layout (big-endian):
+//   int magic, int version, int rows, int metric columns
+//   string block: colleges, string block: positions, string block: names
+//   short[rows] year, short[rows] college id, short[rows] position id, padding to 4 bytes
+//   float[rows] for each metric column
+// A string block is an int count, int total byte length, int[count + 1] offsets, then the UTF-8 bytes
+public class CandidateSnapshot {
+
+    // Marks the start of a snapshot file ("NFLS")
+    private static final int MAGIC = 0x4E464C53;
+
+    // Format version, bumped whenever the layout changes
+    private static final int VERSION = 1;
+
+    // Returns whether the file at 'path' is a snapshot rather than a csv
+    public static boolean isSnapshot(String path) {
+        Path file = Paths.get(path);
+        if (!Files.isRegularFile(file)) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            return channel.read(header) == 4 && header.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Writes every row of 'table' to a snapshot at 'path'
+    public static void write(CandidateTable table, String path) throws IOException {
+        int rows = table.size();
+        byte[][] colleges = encode(table.collegeDictionary(), table.collegeDictionary().length);
+        byte[][] positions = encode(table.positionDictionary(), table.positionDictionary().length);
+        byte[][] names = encode(table.nameColumn(), rows);
+        int metricCount = CandidateTable.METRIC_NAMES.length;
+
+        long length = 16L + blockLength(colleges) + blockLength(positions) + blockLength(names);
+        length = padTo4(length + 3L * rows * Short.BYTES) + (long) metricCount * rows * Float.BYTES;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(metricCount);
+            putBlock(buffer, colleges);
+            putBlock(buffer, positions);
+            putBlock(buffer, names);
+
+            buffer.asShortBuffer().put(table.yearColumn(), 0, rows);
+            buffer.position(buffer.position() + rows * Short.BYTES);
+            buffer.asShortBuffer().put(table.collegeColumn(), 0, rows);
+            buffer.position(buffer.position() + rows * Short.BYTES);
+            buffer.asShortBuffer().put(table.posColumn(), 0, rows);
+            buffer.position(buffer.position() + rows * Short.BYTES);
+            buffer.position((int) padTo4(buffer.position()));
+
+            for (int column = 0; column < metricCount; column++) {
+                buffer.asFloatBuffer().put(table.column(column), 0, rows);
+                buffer.position(buffer.position() + rows * Float.BYTES);
+            }
+            buffer.force();
+        }
+    }
+
+    // Reopens a snapshot written by write()
+    // The columns are bulk-copied straight out of the mapping into the table's primitive arrays
+    // Throws IOException if the file is not a snapshot, or is truncated or damaged
+    public static CandidateTable read(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            if (channel.size() < 16 || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a candidate snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return read(buffer, path);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Damaged snapshot: " + path, e);
+            }
+        }
+    }
+
+    // Decodes a mapped snapshot, checking every count and length against the bytes left in the mapping
+    private static CandidateTable read(ByteBuffer buffer, String path) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a candidate snapshot: " + path);
+        }
+        int rows = buffer.getInt();
+        int metricCount = buffer.getInt();
+        if (metricCount != CandidateTable.METRIC_NAMES.length) {
+            throw new IOException("Snapshot has " + metricCount + " metric columns: " + path);
+        }
+        if (rows < 0) throw new IOException("Damaged snapshot, " + rows + " rows: " + path);
+
+        String[] colleges = getBlock(buffer, path);
+        String[] positions = getBlock(buffer, path);
+        String[] names = getBlock(buffer, path);
+        // Dictionary ids are positions in the block, so a repeated string would shift every later id
+        if (new HashSet<>(Arrays.asList(colleges)).size() != colleges.length
+                || new HashSet<>(Arrays.asList(positions)).size() != positions.length) {
+            throw new IOException("Damaged snapshot, repeated dictionary entry: " + path);
+        }
+        if (names.length != rows) {
+            throw new IOException("Damaged snapshot, " + names.length + " names for " + rows + " rows: " + path);
+        }
+        long columnBytes = padTo4(buffer.position() + 3L * rows * Short.BYTES) - buffer.position()
+                + (long) metricCount * rows * Float.BYTES;
+        if (columnBytes > buffer.remaining()) throw new IOException("Truncated snapshot: " + path);
+
+        // Keep at least one slot so the table can still grow by doubling
+        int capacity = Math.max(rows, 1);
+        short[] year = new short[capacity];
+        short[] college = new short[capacity];
+        short[] pos = new short[capacity];
+        buffer.asShortBuffer().get(year, 0, rows);
+        buffer.position(buffer.position() + rows * Short.BYTES);
+        buffer.asShortBuffer().get(college, 0, rows);
+        buffer.position(buffer.position() + rows * Short.BYTES);
+        buffer.asShortBuffer().get(pos, 0, rows);
+        buffer.position(buffer.position() + rows * Short.BYTES);
+        buffer.position((int) padTo4(buffer.position()));
+        checkIds(college, rows, colleges.length, path);
+        checkIds(pos, rows, positions.length, path);
+
+        float[][] metrics = new float[metricCount][capacity];
+        for (int column = 0; column < metricCount; column++) {
+            buffer.asFloatBuffer().get(metrics[column], 0, rows);
+            buffer.position(buffer.position() + rows * Float.BYTES);
+        }
+
+        String[] name = new String[capacity];
+        System.arraycopy(names, 0, name, 0, rows);
+        return new CandidateTable(rows, year, name, college, pos, metrics, colleges, positions);
+    }
+
+    // Throws if any of the first 'rows' ids is neither NO_ID nor an id of a dictionary with 'count' entries
+    private static void checkIds(short[] ids, int rows, int count, String path) throws IOException {
+        for (int row = 0; row < rows; row++) {
+            if (ids[row] < CandidateTable.NO_ID || ids[row] >= count) {
+                throw new IOException("Damaged snapshot, dictionary id " + ids[row] + " in row " + row + ": " + path);
+            }
+        }
+    }
+
+    // Encodes the first 'count' strings as UTF-8 (null becomes an empty string)
+    private static byte[][] encode(String[] values, int count) {
+        byte[][] encoded = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            encoded[i] = values[i] == null ? new byte[0] : values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    // Returns the number of bytes a string block takes
+    private static long blockLength(byte[][] strings) {
+        long length = 8L + 4L * (strings.length + 1);
+        for (byte[] string : strings) length += string.length;
+        return length;
+    }
+
+    // Writes a string block
+    private static void putBlock(ByteBuffer buffer, byte[][] strings) {
+        int total = 0;
+        for (byte[] string : strings) total += string.length;
+        buffer.putInt(strings.length).putInt(total);
+
+        int offset = 0;
+        buffer.putInt(offset);
+        for (byte[] string : strings) {
+            offset += string.length;
+            buffer.putInt(offset);
+        }
+        for (byte[] string : strings) buffer.put(string);
+    }
+
+    // Reads a string block, throwing if its counts or offsets do not fit the bytes left in the buffer
+    private static String[] getBlock(ByteBuffer buffer, String path) throws IOException {
+        int count = buffer.getInt();
+        int total = buffer.getInt();
+        if (count < 0 || total < 0 || 4L * (count + 1) + total > buffer.remaining()) {
+            throw new IOException("Truncated snapshot: " + path);
+        }
+        int[] offsets = new int[count + 1];
+        buffer.asIntBuffer().get(offsets);
+        buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+        if (offsets[0] != 0 || offsets[count] != total) throw new IOException("Damaged snapshot: " + path);
+
+        byte[] bytes = new byte[total];
+        buffer.get(bytes);
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (offsets[i + 1] < offsets[i]) throw new IOException("Damaged snapshot: " + path);
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    // Rounds a byte offset up to the next multiple of 4
+    private static long padTo4(long offset) {
+        return (offset + 3) & ~3L;
+    }
+}
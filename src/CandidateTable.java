@@ -0,0 +1,253 @@
+/**
+ * @file: CandidateTable.java
+ * @description: This program implements a columnar store for combine candidates. Every metric is kept
+ * in its own primitive float array (NaN marks a missing measurement), and college/position strings are
+ * dictionary encoded into short ids, so a Candidate is only a row number into this table
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class CandidateTable {
+
+    // Column ids of the float metrics, in dataset order
+    public static final int HEIGHT_IN = 0;
+    public static final int WEIGHT_LBS = 1;
+    public static final int HAND_SIZE_IN = 2;
+    public static final int ARM_LENGTH_IN = 3;
+    public static final int WONDERLIC = 4;
+    public static final int FORTY_YARD = 5;
+    public static final int BENCH_PRESS = 6;
+    public static final int VERT_LEAP_IN = 7;
+    public static final int BROAD_JUMP_IN = 8;
+    public static final int SHUTTLE = 9;
+    public static final int THREE_CONE = 10;
+    public static final int SIXTY_YD_SHUTTLE = 11;
+
+    // Names of the metric columns, indexed by column id
+    public static final String[] METRIC_NAMES = {
+            "height_in", "weight_lbs", "hand_size_in", "arm_length_in", "wonderlic", "forty_yard",
+            "bench_press", "vert_leap_in", "broad_jump_in", "shuttle", "three_cone", "sixty_yd_shuttle"
+    };
+
+    // Id stored for a missing college or position
+    public static final short NO_ID = -1;
+
+    private int size; // Number of rows in the table
+    private short[] year; // Year of each row
+    private String[] name; // Name of each row
+    private short[] college; // Dictionary id of each row's college
+    private short[] pos; // Dictionary id of each row's position
+    private final float[][] metrics; // One primitive column per metric
+
+    private final Dictionary colleges = new Dictionary(); // College names by id
+    private final Dictionary positions = new Dictionary(); // Position names by id
+
+    // Constructor that creates an empty table with room for 'capacity' rows
+    public CandidateTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        size = 0;
+        year = new short[capacity];
+        name = new String[capacity];
+        college = new short[capacity];
+        pos = new short[capacity];
+        metrics = new float[METRIC_NAMES.length][capacity];
+    }
+
+    // Constructor that adopts fully built columns, used when reopening a snapshot
+    // 'colleges' and 'positions' list the dictionary strings in id order
+    CandidateTable(int size, short[] year, String[] name, short[] college, short[] pos, float[][] metrics,
+                   String[] colleges, String[] positions) {
+        this.size = size;
+        this.year = year;
+        this.name = name;
+        this.college = college;
+        this.pos = pos;
+        this.metrics = metrics;
+        for (String value : colleges) this.colleges.intern(value);
+        for (String value : positions) this.positions.intern(value);
+    }
+
+    // Builds a table from the combine csv, skipping the header row and any blank or short lines
+    // Missing strings become N/A and missing metrics stay NaN
+    public static CandidateTable fromCsv(CsvReader reader) {
+        CandidateTable table = new CandidateTable(1 << 14);
+        reader.nextRecord(); // Skip the column names
+        while (reader.nextRecord()) {
+            if (reader.fieldCount() < 4 + METRIC_NAMES.length) continue;
+
+            int row = table.addRow();
+            table.setYear(row, reader.getFloat(0));
+            table.setName(row, reader.isEmpty(1) ? "N/A" : reader.getString(1));
+            table.setCollege(row, reader.isEmpty(2) ? "N/A" : reader.getString(2));
+            table.setPos(row, reader.isEmpty(3) ? "N/A" : reader.getString(3));
+            // The metric columns follow the four string columns in dataset order
+            for (int column = 0; column < METRIC_NAMES.length; column++) {
+                table.setMetric(column, row, reader.getFloat(4 + column));
+            }
+        }
+        return table;
+    }
+
+    // Returns the column id for a metric name, or -1 if there is no such metric
+    public static int metricColumn(String metricName) {
+        for (int i = 0; i < METRIC_NAMES.length; i++) {
+            if (METRIC_NAMES[i].equals(metricName)) return i;
+        }
+        return -1;
+    }
+
+    // Appends an empty row (no strings, every metric missing) and returns its row id
+    public int addRow() {
+        if (size == name.length) grow();
+        college[size] = NO_ID;
+        pos[size] = NO_ID;
+        for (float[] column : metrics) {
+            column[size] = Float.NaN;
+        }
+        return size++;
+    }
+
+    // Doubles the capacity of every column
+    private void grow() {
+        int capacity = name.length * 2;
+        year = Arrays.copyOf(year, capacity);
+        name = Arrays.copyOf(name, capacity);
+        college = Arrays.copyOf(college, capacity);
+        pos = Arrays.copyOf(pos, capacity);
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i] = Arrays.copyOf(metrics[i], capacity);
+        }
+    }
+
+    // Returns the number of rows in the table
+    public int size() {
+        return size;
+    }
+
+    // Returns a 64-bit hash of every row's strings and metrics in row order, so row ids saved against this
+    // table can be told apart from ones saved against another dataset
+    public long fingerprint() {
+        long hash = size;
+        for (int row = 0; row < size; row++) {
+            hash = hash * 31 + year[row];
+            hash = hash * 31 + java.util.Objects.hashCode(name[row]);
+            hash = hash * 31 + java.util.Objects.hashCode(getCollege(row));
+            hash = hash * 31 + java.util.Objects.hashCode(getPos(row));
+            for (float[] column : metrics) {
+                hash = hash * 31 + Float.floatToIntBits(column[row]);
+            }
+        }
+        return hash;
+    }
+
+    // Returns a Candidate view of the given row
+    public Candidate row(int row) {
+        return new Candidate(this, row);
+    }
+
+    // Returns the backing array of a metric column; only the first size() entries are rows
+    public float[] column(int column) {
+        return metrics[column];
+    }
+
+    // Raw columns and dictionaries for writing a snapshot; only the first size() entries are rows
+    short[] yearColumn() {
+        return year;
+    }
+    String[] nameColumn() {
+        return name;
+    }
+    short[] collegeColumn() {
+        return college;
+    }
+    short[] posColumn() {
+        return pos;
+    }
+    String[] collegeDictionary() {
+        return colleges.values.toArray(new String[0]);
+    }
+    String[] positionDictionary() {
+        return positions.values.toArray(new String[0]);
+    }
+
+    // Getters and setters for a single cell
+    public float getYear(int row) {
+        return year[row];
+    }
+    public void setYear(int row, float value) {
+        year[row] = (short) value;
+    }
+    public String getName(int row) {
+        return name[row];
+    }
+    public void setName(int row, String value) {
+        name[row] = value;
+    }
+    public String getCollege(int row) {
+        return colleges.get(college[row]);
+    }
+    public void setCollege(int row, String value) {
+        college[row] = colleges.intern(value);
+    }
+    public short getCollegeId(int row) {
+        return college[row];
+    }
+    public String getPos(int row) {
+        return positions.get(pos[row]);
+    }
+    public void setPos(int row, String value) {
+        pos[row] = positions.intern(value);
+    }
+    public short getPosId(int row) {
+        return pos[row];
+    }
+
+    // Returns the dictionary id of a college or position name, or NO_ID if no row has it
+    public short collegeId(String value) {
+        return colleges.find(value);
+    }
+    public short positionId(String value) {
+        return positions.find(value);
+    }
+    public float getMetric(int column, int row) {
+        return metrics[column][row];
+    }
+    public void setMetric(int column, int row, float value) {
+        metrics[column][row] = value;
+    }
+
+    // Dictionary that maps each distinct string to a small id
+    private static class Dictionary {
+        private final ArrayList<String> values = new ArrayList<>(); // Strings by id
+        private final HashMap<String, Short> ids = new HashMap<>(); // Ids by string
+
+        // Returns the id of 'value', assigning the next free id the first time it is seen
+        short intern(String value) {
+            if (value == null) return NO_ID;
+            Short id = ids.get(value);
+            if (id != null) return id;
+            if (values.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct values to encode: " + value);
+            }
+            short next = (short) values.size();
+            values.add(value);
+            ids.put(value, next);
+            return next;
+        }
+
+        // Returns the id of 'value' without assigning one, or NO_ID if it has not been seen
+        short find(String value) {
+            Short id = ids.get(value);
+            return id == null ? NO_ID : id;
+        }
+
+        // Returns the string for an id, or null for NO_ID
+        String get(short id) {
+            return id == NO_ID ? null : values.get(id);
+        }
+    }
+}
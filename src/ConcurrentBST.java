@@ -0,0 +1,197 @@
+/**
+ * @file: ConcurrentBST.java
+ * @description: This program implements a thread-safe BST for many readers and writers. Lookups share a
+ * read lock and run in parallel, mutations take the write lock, and iteration works on a snapshot so it
+ * never sees a half-applied change
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+class ConcurrentBST<T> implements Iterable<T> {
+    private final BST<T> tree; // The tree every operation is delegated to
+    private final Lock readLock; // Shared by lookups
+    private final Lock writeLock; // Exclusive to mutations
+
+    // Constructor for a balanced tree ordered by the elements' natural ordering
+    public ConcurrentBST() {
+        this(new BST<T>(true));
+    }
+
+    // Constructor for a balanced tree ordered by 'comparator'
+    public ConcurrentBST(Comparator<? super T> comparator) {
+        this(new BST<T>(comparator, true));
+    }
+
+    // Constructor that guards an existing tree; the caller must not touch 'tree' directly afterwards
+    public ConcurrentBST(BST<T> tree) {
+        this.tree = tree;
+        // Fair, so a steady stream of readers cannot starve ingest
+        ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    // Mutations, each applied atomically under the write lock
+    public void insert(T obj) {
+        writeLock.lock();
+        try {
+            tree.insert(obj);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public T remove(T obj) {
+        writeLock.lock();
+        try {
+            return tree.remove(obj);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void bulkLoad(Collection<? extends T> elements) {
+        writeLock.lock();
+        try {
+            tree.bulkLoad(elements);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void clear() {
+        writeLock.lock();
+        try {
+            tree.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Lookups, which may run concurrently with each other
+    public T search(T obj) {
+        readLock.lock();
+        try {
+            return tree.search(obj);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public T floor(T obj) {
+        readLock.lock();
+        try {
+            return tree.floor(obj);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public T ceiling(T obj) {
+        readLock.lock();
+        try {
+            return tree.ceiling(obj);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public List<T> rangeSearch(T lo, T hi) {
+        readLock.lock();
+        try {
+            return tree.rangeSearch(lo, hi);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public List<T> topK(int k) {
+        readLock.lock();
+        try {
+            return tree.topK(k);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public List<T> bottomK(int k) {
+        readLock.lock();
+        try {
+            return tree.bottomK(k);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int rank(T obj) {
+        readLock.lock();
+        try {
+            return tree.rank(obj);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public T select(int i) {
+        readLock.lock();
+        try {
+            return tree.select(i);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int size() {
+        readLock.lock();
+        try {
+            return tree.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        readLock.lock();
+        try {
+            return tree.isEmpty();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int height() {
+        readLock.lock();
+        try {
+            return tree.height();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Returns every element in order as of a single point in time
+    public List<T> snapshot() {
+        readLock.lock();
+        try {
+            List<T> elements = new ArrayList<>(tree.size());
+            tree.forEach(elements::add);
+            return Collections.unmodifiableList(elements);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Iterates over a snapshot, so concurrent writers never disturb or fail the traversal
+    @Override
+    public Iterator<T> iterator() {
+        return snapshot().iterator();
+    }
+}
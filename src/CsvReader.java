@@ -0,0 +1,154 @@
+/**
+ * @file: CsvReader.java
+ * @description: This program implements a byte-level CSV reader. Records are scanned in place over the raw
+ * file bytes, numbers are parsed straight from the buffer and Strings are only built for fields that ask for them
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class CsvReader {
+
+    // Powers of ten used to scale parsed decimal digits
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private final byte[] data; // Raw file contents
+    private int position; // Offset of the next unread byte
+    private int fieldCount; // Number of fields in the current record
+    private int[] starts = new int[16]; // Offset of the first byte of each field
+    private int[] ends = new int[16]; // Offset just past the last byte of each field
+    private boolean[] quoted = new boolean[16]; // Whether each field was wrapped in quotes
+
+    // Constructor that reads records from a byte array
+    public CsvReader(byte[] data) {
+        this.data = data;
+        this.position = 0;
+        this.fieldCount = 0;
+    }
+
+    // Reads a whole file into a reader
+    public static CsvReader open(String path) throws IOException {
+        return new CsvReader(Files.readAllBytes(Paths.get(path)));
+    }
+
+    // Advances to the next record, returning false at the end of the data
+    // Handles \n, \r\n and \r line endings and quoted fields with "" escapes
+    public boolean nextRecord() {
+        if (position >= data.length) return false;
+        fieldCount = 0;
+
+        while (true) {
+            if (fieldCount == starts.length) growFields();
+            int field = fieldCount++;
+
+            if (position < data.length && data[position] == '"') {
+                // Quoted field: runs to the closing quote that is not followed by another quote
+                quoted[field] = true;
+                starts[field] = ++position;
+                while (position < data.length) {
+                    if (data[position] == '"') {
+                        if (position + 1 < data.length && data[position + 1] == '"') {
+                            position += 2; // Escaped quote
+                            continue;
+                        }
+                        break;
+                    }
+                    position++;
+                }
+                ends[field] = position;
+                if (position < data.length) position++; // Skip the closing quote
+            } else {
+                quoted[field] = false;
+                starts[field] = position;
+            }
+
+            // Scan to the end of the field
+            while (position < data.length && data[position] != ',' && data[position] != '\n' && data[position] != '\r') {
+                position++;
+            }
+            if (!quoted[field]) ends[field] = position;
+
+            if (position >= data.length) return true;
+            byte separator = data[position++];
+            if (separator == ',') continue;
+            if (separator == '\r' && position < data.length && data[position] == '\n') position++;
+            return true;
+        }
+    }
+
+    // Doubles the room for fields in one record
+    private void growFields() {
+        starts = Arrays.copyOf(starts, starts.length * 2);
+        ends = Arrays.copyOf(ends, ends.length * 2);
+        quoted = Arrays.copyOf(quoted, quoted.length * 2);
+    }
+
+    // Returns the number of fields in the current record
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    // Returns whether a field is missing or empty
+    public boolean isEmpty(int field) {
+        return field >= fieldCount || starts[field] == ends[field];
+    }
+
+    // Returns a field as a String, or null if it is missing
+    public String getString(int field) {
+        if (field >= fieldCount) return null;
+        String value = new String(data, starts[field], ends[field] - starts[field], StandardCharsets.UTF_8);
+        return quoted[field] ? value.replace("\"\"", "\"") : value;
+    }
+
+    // Parses a field as a float straight from the buffer
+    // Returns NaN when the field is empty or not a number
+    public float getFloat(int field) {
+        if (isEmpty(field)) return Float.NaN;
+        int i = starts[field];
+        int end = ends[field];
+
+        boolean negative = false;
+        if (data[i] == '-' || data[i] == '+') {
+            negative = data[i] == '-';
+            i++;
+        }
+
+        long digits = 0; // Decimal digits read so far, ignoring the point
+        int digitCount = 0;
+        int scale = -1; // Digits after the decimal point, or -1 before it is seen
+        for (; i < end; i++) {
+            byte b = data[i];
+            if (b >= '0' && b <= '9') {
+                digits = digits * 10 + (b - '0');
+                digitCount++;
+                if (scale >= 0) scale++;
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return parseSlow(field); // Exponents and other rare forms
+            }
+        }
+        if (digitCount == 0) return Float.NaN;
+        if (digitCount >= POWERS_OF_TEN.length) return parseSlow(field);
+
+        double value = scale > 0 ? digits / POWERS_OF_TEN[scale] : digits;
+        return (float) (negative ? -value : value);
+    }
+
+    // Falls back to Float.parseFloat for fields the fast path does not handle
+    private float parseSlow(int field) {
+        try {
+            return Float.parseFloat(getString(field).trim());
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * @file: Metrics.java
+ * @description: This program records where a run spends its time: a latency histogram per command type,
+ * the time spent loading the dataset and looking players up in it, and how often searches hit the cache.
+ * Histograms use power-of-two nanosecond buckets and LongAdder counters, so commands running in parallel can
+ * record without contending on a lock
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Metrics {
+
+    // Most distinct command types tracked; anything past this is recorded as "other"
+    private static final int MAX_COMMAND_TYPES = 64;
+
+    // Latency of every command type seen so far, keyed by command name
+    private final Map<String, Histogram> commands = new ConcurrentHashMap<>();
+
+    // Latency of resolving a name to a dataset row
+    private final Histogram lookups = new Histogram();
+
+    // Time spent reading the dataset at startup
+    private volatile long datasetLoadNanos;
+
+    // Searches answered from the search cache, and searches that had to descend the tree
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    // Records that one 'command' took 'nanos' nanoseconds
+    public void recordCommand(String command, long nanos) {
+        Histogram histogram = commands.get(command);
+        if (histogram == null) {
+            if (commands.size() >= MAX_COMMAND_TYPES) command = "other";
+            histogram = commands.computeIfAbsent(command, key -> new Histogram());
+        }
+        histogram.record(nanos);
+    }
+
+    // Records that one name lookup took 'nanos' nanoseconds
+    public void recordLookup(long nanos) {
+        lookups.record(nanos);
+    }
+
+    // Records how long the dataset took to load
+    public void recordDatasetLoad(long nanos) {
+        datasetLoadNanos = nanos;
+    }
+
+    // Records whether one search was answered from the search cache
+    public void recordCacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    // Appends the dataset timings, the cache hit rate and one histogram line per command type, sorted by name
+    public void appendTo(StringBuilder sb) {
+        sb.append(String.format(Locale.ROOT, "dataset load %.3f ms", datasetLoadNanos / 1e6))
+                .append(System.lineSeparator());
+        lookups.appendTo(sb, "lookup");
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        sb.append("search cache hits ").append(hits).append(" misses ").append(total - hits)
+                .append(String.format(Locale.ROOT, " hit rate %.1f%%", total == 0 ? 0.0 : 100.0 * hits / total))
+                .append(System.lineSeparator());
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(commands).entrySet()) {
+            entry.getValue().appendTo(sb, entry.getKey());
+        }
+    }
+
+    // Latency histogram whose bucket i counts durations in [2^i, 2^(i+1)) nanoseconds
+    private static class Histogram {
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        // Constructor that creates an empty histogram
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        // Adds one duration
+        void record(long nanos) {
+            nanos = Math.max(nanos, 1);
+            buckets[63 - Long.numberOfLeadingZeros(nanos)].increment();
+            count.increment();
+            totalNanos.add(nanos);
+        }
+
+        // Appends 'label', the count, mean, p50/p99/max bucket bounds and the non-empty buckets
+        // Each bucket is shown by its upper bound, so "<2.0us:5" means five durations in [1us, 2us)
+        void appendTo(StringBuilder sb, String label) {
+            long[] counts = new long[buckets.length];
+            long n = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets[i].sum();
+                n += counts[i];
+            }
+            sb.append(label).append(" count ").append(n);
+            if (n > 0) {
+                sb.append(String.format(Locale.ROOT, " mean %.1fus", totalNanos.sum() / 1e3 / count.sum()))
+                        .append(" p50 <").append(micros(quantile(counts, n, 0.50)))
+                        .append(" p99 <").append(micros(quantile(counts, n, 0.99)))
+                        .append(" max <").append(micros(quantile(counts, n, 1.0)))
+                        .append(" |");
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) sb.append(" <").append(micros(i)).append(':').append(counts[i]);
+                }
+            }
+            sb.append(System.lineSeparator());
+        }
+
+        // Returns the bucket holding the q-th quantile of 'n' recorded durations
+        private static int quantile(long[] counts, long n, double q) {
+            long target = Math.max(1, (long) Math.ceil(q * n));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) return i;
+            }
+            return counts.length - 1;
+        }
+
+        // Formats the upper bound of a bucket in microseconds, or milliseconds once it passes 10ms
+        private static String micros(int bucket) {
+            double micros = Math.scalb(1.0, bucket + 1) / 1e3;
+            return micros < 1e4 ? String.format(Locale.ROOT, "%.1fus", micros)
+                    : String.format(Locale.ROOT, "%.1fms", micros / 1e3);
+        }
+    }
+}
@@ -6,16 +6,31 @@
  * @date: September 25, 2024
  */
 
-public class Node<T extends Comparable<T>> {
+public class Node<T> {
     // The value or element stored in this node
     T obj;
 
+    // Further elements that compare equal to 'obj', kept in insertion order
+    Object[] bucket;
+
+    // Number of elements stored in 'bucket'
+    int bucketSize;
+
     // Reference to the left child node
     Node<T> left;
 
     // Reference to the right child node
     Node<T> right;
 
+    // Reference to the parent node (null for the root)
+    Node<T> parent;
+
+    // Height of the subtree rooted at this node (a leaf has height 1)
+    int height;
+
+    // Number of elements in the subtree rooted at this node, including every bucket
+    int subtreeSize;
+
     // Default constructor initializes an empty node with no element and no children
     public Node() {
         this.obj = null;
@@ -28,6 +43,8 @@ public class Node<T extends Comparable<T>> {
         this.obj = obj;    // Set the element of the node
         this.left = left;  // Set the left child
         this.right = right; // Set the right child
+        this.height = 1;
+        this.subtreeSize = 1;
     }
 
     // Method to set the element of the node
@@ -35,6 +52,52 @@ public class Node<T extends Comparable<T>> {
         this.obj = obj;
     }
 
+    // Method to get the number of elements held by this node
+    public int count() {
+        return 1 + bucketSize;
+    }
+
+    // Method to get the i-th element held by this node (0 is the node's own element)
+    @SuppressWarnings("unchecked")
+    public T get(int i) {
+        return i == 0 ? obj : (T) bucket[i - 1];
+    }
+
+    // Method to add another element that compares equal to this node's element
+    public void add(T element) {
+        if (bucket == null) {
+            bucket = new Object[2];
+        } else if (bucketSize == bucket.length) {
+            bucket = java.util.Arrays.copyOf(bucket, bucketSize * 2);
+        }
+        bucket[bucketSize++] = element;
+    }
+
+    // Method to find the element held by this node that equals 'element', or -1 if there is none
+    public int indexOf(T element) {
+        for (int i = 0; i < count(); i++) {
+            if (get(i).equals(element)) return i;
+        }
+        return -1;
+    }
+
+    // Method to remove the i-th element, keeping the rest in order; the node must hold another element
+    public void removeAt(int i) {
+        if (i == 0) {
+            obj = get(1); // Promote the next element in the bucket
+            i = 1;
+        }
+        System.arraycopy(bucket, i, bucket, i - 1, bucketSize - i);
+        bucket[--bucketSize] = null;
+    }
+
+    // Method to take over every element held by another node
+    public void moveElementsFrom(Node<T> other) {
+        this.obj = other.obj;
+        this.bucket = other.bucket;
+        this.bucketSize = other.bucketSize;
+    }
+
     // Method to set the left child node
     public void setLeft(Node<T> left) {
         this.left = left;
@@ -45,6 +108,11 @@ public class Node<T extends Comparable<T>> {
         this.right = right;
     }
 
+    // Method to set the parent node
+    public void setParent(Node<T> parent) {
+        this.parent = parent;
+    }
+
     // Method to get the left child node
     public Node<T> getLeft() {
         return left;
@@ -55,11 +123,36 @@ public class Node<T extends Comparable<T>> {
         return right;
     }
 
+    // Method to get the parent node
+    public Node<T> getParent() {
+        return parent;
+    }
+
     // Method to get the element stored in this node
     public T getElement() {
         return obj;
     }
 
+    // Method to get the height of the subtree rooted at this node
+    public int getHeight() {
+        return height;
+    }
+
+    // Method to set the height of the subtree rooted at this node
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    // Method to get the number of elements in the subtree rooted at this node
+    public int getSubtreeSize() {
+        return subtreeSize;
+    }
+
+    // Method to set the number of elements in the subtree rooted at this node
+    public void setSubtreeSize(int subtreeSize) {
+        this.subtreeSize = subtreeSize;
+    }
+
     // Method to check if the node is a leaf (i.e., has no children)
     public boolean isLeaf() {
         return left == null && right == null;
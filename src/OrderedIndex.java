@@ -0,0 +1,97 @@
+/**
+ * @file: OrderedIndex.java
+ * @description: This program defines the contract shared by the ordered storage engines (BST, ArrayBST and
+ * BPlusTree): elements are kept sorted by a comparator, elements with equal keys keep their insertion order,
+ * and identity within a key is decided by equals(). Order statistics default to an in-order walk, which
+ * engines that track subtree sizes replace with a single descent
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+interface OrderedIndex<T> extends Iterable<T> {
+
+    // Adds an element, after any elements with an equal key
+    void insert(T obj);
+
+    // Removes and returns the stored element equal to obj, or returns null if there is none
+    T remove(T obj);
+
+    // Returns the stored element equal to obj, or null if it is not in the index
+    T search(T obj);
+
+    // Adds every element of 'elements' at once
+    void bulkLoad(Collection<? extends T> elements);
+
+    // Removes every element
+    void clear();
+
+    // Returns the number of elements
+    int size();
+
+    // Returns whether there are no elements
+    boolean isEmpty();
+
+    // Returns the number of levels from the root to the deepest element (0 when empty)
+    int height();
+
+    // Returns the ordering of the index
+    Comparator<? super T> comparator();
+
+    // Returns every element between 'lo' and 'hi' (inclusive) in order
+    List<T> rangeSearch(T lo, T hi);
+
+    // Returns the first element of the greatest key <= obj, or null if there is none
+    T floor(T obj);
+
+    // Returns the first element of the least key >= obj, or null if there is none
+    T ceiling(T obj);
+
+    // Returns the k greatest elements, greatest key first
+    List<T> topK(int k);
+
+    // Returns the k greatest elements whose key is <= hi, greatest key first
+    List<T> topK(int k, T hi);
+
+    // Returns the k least elements, least first
+    List<T> bottomK(int k);
+
+    // Returns the number of elements between 'lo' and 'hi' (inclusive), or 'limit' if there are more
+    // Engines that can walk forward from 'lo' stop once 'limit' are counted; this default collects the range
+    default int countRange(T lo, T hi, int limit) {
+        return Math.min(rangeSearch(lo, hi).size(), limit);
+    }
+
+    // Whether rank is a single descent rather than the default in-order walk, so callers may use it freely
+    default boolean hasFastRank() {
+        return false;
+    }
+
+    // Returns the number of elements whose key is strictly less than obj's
+    default int rank(T obj) {
+        int rank = 0;
+        for (T element : this) {
+            if (comparator().compare(element, obj) >= 0) break;
+            rank++;
+        }
+        return rank;
+    }
+
+    // Returns the element at position i (0-based) of the in-order sequence, or null if out of range
+    default T select(int i) {
+        if (i < 0 || i >= size()) return null;
+        for (T element : this) {
+            if (i-- == 0) return element;
+        }
+        return null;
+    }
+
+    // Returns the percentile rank of obj's key among the lowest 'population' elements, counting ties as half
+    default double percentile(T obj, int population) {
+        if (population <= 0) return 0;
+        return 100.0 * (rank(obj) + rangeSearch(obj, obj).size() / 2.0) / population;
+    }
+}
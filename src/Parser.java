@@ -7,57 +7,270 @@
  */
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
-public class Parser {
+public class Parser implements Closeable {
 
-    // Create a Binary Search Tree (BST) of Integer type
-    private BST mybst = new BST<>();
+    // Whether trees rebalance themselves, true unless -Dbst.balanced=false
+    private final boolean balanced = Boolean.parseBoolean(System.getProperty("bst.balanced", "true"));
+
+    // Create a Binary Search Tree (BST) of Candidates ordered by weight
+    private BST<Candidate> mybst = new BST<>(balanced);
+
+    // Secondary indexes over the same candidates, one per metric name, kept in step with mybst
+    private final Map<String, OrderedIndex<Candidate>> indexes = new LinkedHashMap<>();
+
+    // Storage engine of the secondary indexes: bst, array or bplus, set with -Dparser.engine
+    private final String engine = System.getProperty("parser.engine", "bst");
+
+    // Location of the combine dataset, a csv or a snapshot, set with -Dparser.dataset
+    private final String datasetPath = System.getProperty("parser.dataset", "src/nfl_combine.csv");
+
+    // Every candidate in the dataset, stored column by column
+    private CandidateTable table = new CandidateTable(1);
+
+    // Table rows of every candidate keyed by name, loaded once so commands never rescan the csv
+    private final Map<String, int[]> rowsByName = new HashMap<>();
+
+    // Number of times each table row is in mybst
+    private int[] liveCount = new int[0];
+
+    // Bitmask of the table rows in mybst, bit (row % 64) of word (row / 64); the domain of select queries
+    private long[] liveRows = new long[0];
+
+    // Posting indexes from pos, college and year to the live rows holding each value, kept in step with liveRows
+    private final Map<String, PostingIndex> postings = new LinkedHashMap<>();
+
+    // Output file every command result is written to, set with -Dparser.result
+    private final String resultFile = System.getProperty("parser.result", "./result.txt");
+
+    // Buffered sink for result.txt, opened once and held for the whole run
+    private final BufferedWriter out;
+
+    // Flush the sink after this many commands (0 flushes only on close), set with -Dparser.flushEvery
+    private final int flushEvery = Integer.getInteger("parser.flushEvery", 0);
+
+    // Number of commands executed since the sink was last flushed
+    private int unflushedCommands = 0;
+
+    // Whether runs of read-only commands execute in parallel, true unless -Dparser.parallel=false
+    private final boolean parallel = Boolean.parseBoolean(System.getProperty("parser.parallel", "true"));
+
+    // Fewer queued reads than this run sequentially, since forking would cost more than it saves
+    private static final int MIN_PARALLEL_READS = 64;
+
+    // Most reads queued before the batch is executed, bounding the output held in memory
+    private static final int MAX_READ_BATCH = 8192;
+
+    // Read-only commands waiting for the next mutation or the end of the file
+    private final List<String[]> pendingReads = new ArrayList<>();
+
+    // Output of the command running on the current thread while a batch executes in parallel
+    private final ThreadLocal<StringBuilder> capturedOutput = new ThreadLocal<>();
+
+    // Most names whose search result is cached (0 disables the cache), set with -Dparser.cacheSize
+    private final int cacheSize = Integer.getInteger("parser.cacheSize", 1024);
+
+    // Search result of recently searched names: the candidate stored in mybst, or NOT_IN_TREE
+    // Searches in a parallel batch share it; commands that change mybst run between batches and invalidate
+    // the names they touch
+    private final SearchCache<Candidate> searchCache = new SearchCache<>(cacheSize);
+
+    // Cached result of a name that is not in mybst
+    private static final Candidate NOT_IN_TREE = new Candidate();
+
+    // Command latencies and dataset timings reported by the stats command
+    private final Metrics metrics = new Metrics();
+
+    // File the stats report is rewritten to while the run progresses, set with -Dparser.statsFile
+    private final String statsFile = System.getProperty("parser.statsFile");
+
+    // Rewrite the stats file after this many commands, set with -Dparser.statsEvery
+    private final int statsEvery = Math.max(1, Integer.getInteger("parser.statsEvery", 10000));
+
+    // Number of commands executed since the stats file was last written
+    private int commandsSinceStats = 0;
 
     // Constructor that takes a filename as an argument
-    // Clears the result.txt file and processes the input file
+    // Truncates result.txt, processes the input file and closes the output
     public Parser(String filename) throws FileNotFoundException {
-        clearFile();  // Clear the output file before writing new data
-        PrintStream fileOut = new PrintStream(new FileOutputStream("result.txt", true)); // Set output to file
-        System.setOut(fileOut); // Redirects System.out to the file "result.txt"
-        process(new File(filename)); // Process the input file
+        loadDataset(); // Parse the csv into the name index once
+        // Opening without append clears any previous results
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(resultFile), StandardCharsets.UTF_8), 1 << 16);
+        try {
+            process(new File(filename)); // Process the input file
+        } finally {
+            close();
+        }
     }
 
-    // Method to clear the contents of the result.txt file
-    private void clearFile() {
-        try (FileWriter fw = new FileWriter("./result.txt", false)) {
-            fw.write(""); // Overwrite the file with an empty string, effectively clearing it
+    // Flushes and closes the result file
+    @Override
+    public void close() {
+        if (statsFile != null) writeStatsFile();
+        try {
+            out.close();
         } catch (IOException e) {
-            e.printStackTrace(); // Print stack trace if an exception occurs
+            System.err.println("An error occurred while closing the result file.");
         }
     }
 
     // Process the input file by reading each line and performing corresponding operations
     // Removes redundant spaces and splits the input into commands
     public void process(File input) throws FileNotFoundException {
-        Scanner scanner = new Scanner(input); // Create a scanner to read the file
-        boolean isFirstLine = true; // Flag to skip the first line
+        try (Scanner scanner = new Scanner(input)) { // Create a scanner to read the file
+            boolean isFirstLine = true; // Flag to skip the first line
+
+            while (scanner.hasNextLine()) { // Loop through each line in the file
+                String line = scanner.nextLine().trim(); // Trim leading and trailing whitespace
+
+                // Skip the first line
+                if (isFirstLine) {
+                    isFirstLine = false;
+                    continue;
+                }
 
-        while (scanner.hasNextLine()) { // Loop through each line in the file
-            String line = scanner.nextLine().trim(); // Trim leading and trailing whitespace
+                // Skip empty lines
+                if (line.isEmpty()) continue;
 
-            // Skip the first line
-            if (isFirstLine) {
-                isFirstLine = false;
-                continue;
+                // Parse the line into commands separated by whitespace
+                String[] inputs = line.split("\\s+", 2);
+
+                // Queue runs of lookups so they can run side by side
+                if (parallel && isReadOnly(inputs)) {
+                    pendingReads.add(inputs);
+                    if (pendingReads.size() == MAX_READ_BATCH) runPendingReads();
+                    continue;
+                }
+
+                // A mutation must see every earlier lookup finish first
+                runPendingReads();
+
+                // Call operate_BST method to handle the commands
+                operate_BST(inputs);
+                flushIfDue();
+                statsIfDue(1);
             }
+            runPendingReads();
+        }
+    }
 
-            // Skip empty lines
-            if (line.isEmpty()) continue;
+    // Returns whether a command only reads the tree and indexes, so it may run concurrently with other reads
+    // Queries on a metric without an index are not, since the first one builds the index
+    private boolean isReadOnly(String[] inputs) {
+        switch (inputs[0]) {
+            case "search", "select", "explain", "group":
+                return true;
+            case "range", "floor", "ceiling", "top", "bottom", "rank", "percentile", "nth":
+                return inputs.length > 1 && indexFor(inputs[1].split("\\s+", 2)[0]) != null;
+            default:
+                return false;
+        }
+    }
 
-            // Parse the line into commands separated by whitespace
-            String[] inputs = line.split("\\s+", 2);
+    // Executes the queued lookups, in parallel when there are enough of them, and writes their output in order
+    private void runPendingReads() {
+        if (pendingReads.isEmpty()) return;
+        if (pendingReads.size() < MIN_PARALLEL_READS) {
+            for (String[] inputs : pendingReads) {
+                operate_BST(inputs);
+                flushIfDue();
+            }
+        } else {
+            List<String> outputs = pendingReads.parallelStream().map(this::runCaptured).collect(Collectors.toList());
+            for (String output : outputs) {
+                try {
+                    out.write(output);
+                } catch (IOException e) {
+                    System.err.println("An error occurred while writing to the file.");
+                }
+                flushIfDue();
+            }
+        }
+        statsIfDue(pendingReads.size());
+        pendingReads.clear();
+    }
 
-            // Call operate_BST method to handle the commands
+    // Runs one command on the calling thread and returns what it would have written
+    private String runCaptured(String[] inputs) {
+        StringBuilder output = new StringBuilder();
+        capturedOutput.set(output);
+        try {
             operate_BST(inputs);
+        } finally {
+            capturedOutput.remove();
         }
+        return output.toString();
+    }
 
+    // Applies the flush policy after a command has run
+    private void flushIfDue() {
+        if (flushEvery <= 0 || ++unflushedCommands < flushEvery) return;
+        unflushedCommands = 0;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing to the file.");
+        }
+    }
+    // Rewrites the stats file once 'commands' more commands bring the count since the last write to statsEvery
+    private void statsIfDue(int commands) {
+        if (statsFile == null) return;
+        commandsSinceStats += commands;
+        if (commandsSinceStats < statsEvery) return;
+        commandsSinceStats = 0;
+        writeStatsFile();
+    }
+
+    // Replaces the stats file with the current report
+    private void writeStatsFile() {
+        try {
+            Files.writeString(Paths.get(statsFile), statsReport(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing the stats file.");
+        }
+    }
+
+    // Builds the stats report: the shape and search cost of every tree, then dataset and command timings
+    private String statsReport() {
+        StringBuilder sb = new StringBuilder();
+        appendTreeStats(sb, "tree", mybst);
+        for (Map.Entry<String, OrderedIndex<Candidate>> index : indexes.entrySet()) {
+            appendTreeStats(sb, "index " + index.getKey(), index.getValue());
+        }
+        metrics.appendTo(sb);
+        return sb.toString();
+    }
+
+    // Appends one line describing 'tree': size and height, and for a BST also the optimal height,
+    // rotations and comparisons per descent
+    private void appendTreeStats(StringBuilder sb, String label, OrderedIndex<Candidate> tree) {
+        sb.append(label).append(' ').append(tree.getClass().getSimpleName())
+                .append(" size ").append(tree.size()).append(" height ").append(tree.height());
+        if (tree instanceof BST<Candidate> bst) {
+            long descents = bst.descents();
+            sb.append(" optimal ").append(bst.optimalHeight())
+                    .append(" rotations ").append(bst.rotations())
+                    .append(" comparisons ").append(bst.comparisons()).append(" descents ").append(descents)
+                    .append(String.format(Locale.ROOT, " per descent %.2f",
+                            descents == 0 ? 0.0 : (double) bst.comparisons() / descents));
+        }
+        sb.append(System.lineSeparator());
     }
+
     // Method to check if the string is numeric
     public static boolean isNumeric(String str) {
         if (str == null || str.isEmpty()) {
@@ -71,236 +284,510 @@ public class Parser {
         }
     }
 
-    // Operates on the BST based on the incoming command
-    public void operate_BST(String[] inputs) {
-        // Set the output file path
-        String newFile = "./result.txt";
-        String csvFile = "/Users/tuckercorwen/IdeaProjects/project-1-part-2-corwth21/src/nfl_combine.csv";
-        String[] info = null;
-
-
+    // Loads every row of the dataset once and indexes the parsed candidates by name
+    // A snapshot file is reopened directly, anything else is parsed as csv
+    private void loadDataset() {
+        long start = System.nanoTime();
         try {
-            //Create a Scanner class that reads the data csv
-          Scanner csvScanner = new Scanner(new File(csvFile));
-
-        switch (inputs[0]) {
-            //if the input command is insert, take the information in and insert a new candidate object
-            case "insert" -> {
-
-                while (csvScanner.hasNextLine()) {
-                    String line = csvScanner.nextLine().trim();
-                    if (line.isEmpty()) continue;
+            if (CandidateSnapshot.isSnapshot(datasetPath)) {
+                table = CandidateSnapshot.read(datasetPath);
+            } else {
+                table = CandidateTable.fromCsv(CsvReader.open(datasetPath));
+            }
+        } catch (NoSuchFileException e) {
+            System.err.println("Error: File not found: " + datasetPath);
+            return;
+        } catch (IOException e) {
+            System.err.println("Error: Could not read " + datasetPath + ": " + e.getMessage());
+            return;
+        }
 
-                    info = line.split(",", -1);
+        // Players sharing a name are kept in the same bucket in file order
+        for (int row = 0; row < table.size(); row++) {
+            rowsByName.merge(table.getName(row), new int[] {row}, (rows, added) -> {
+                int[] merged = Arrays.copyOf(rows, rows.length + 1);
+                merged[rows.length] = added[0];
+                return merged;
+            });
+        }
+        liveCount = new int[table.size()];
+        liveRows = new long[(table.size() + 63) >>> 6];
+        for (String field : new String[] {"pos", "college", "year"}) {
+            postings.put(field, new PostingIndex(table.size()));
+        }
+        metrics.recordDatasetLoad(System.nanoTime() - start);
+    }
 
-                    if (!info[1].equals(inputs[1])) {
-                        continue;
-                    }
+    // Returns the first candidate in the dataset with the given name that is in mybst when 'inTree' is true,
+    // or not in it when false, so each of several players sharing a name can be inserted, searched and removed
+    // Falls back to the first candidate with the name, and returns null if there is none
+    public Candidate lookup(String name, boolean inTree) {
+        long start = System.nanoTime();
+        int[] rows = rowsByName.get(name);
+        Candidate candidate = null;
+        if (rows != null) {
+            int match = rows[0];
+            for (int row : rows) {
+                if ((liveCount[row] > 0) == inTree) {
+                    match = row;
                     break;
-
                 }
+            }
+            candidate = table.row(match);
+        }
+        metrics.recordLookup(System.nanoTime() - start);
+        return candidate;
+    }
 
-                //Check csv data points, if missing create N/A or 0 entries
-                float year = Float.parseFloat(info[0].isEmpty() ? "0" : info[0]);
-                String name = info[1].isEmpty() ? "N/A" : info[1];
-                String college = info[2].isEmpty() ? "N/A" : info[2];
-                String position = info[3].isEmpty() ? "N/A" : info[3];
+    // Returns the candidate stored in mybst for 'name', or null if it is not in the tree
+    // 'candidate' is the dataset row of 'name'; results are cached until a command changes that name's entry
+    private Candidate search(String name, Candidate candidate) {
+        if (cacheSize <= 0) return mybst.search(candidate);
+        Candidate found = searchCache.get(name);
+        metrics.recordCacheLookup(found != null);
+        if (found == null) {
+            found = mybst.search(candidate);
+            if (found == null) found = NOT_IN_TREE;
+            searchCache.put(name, found);
+        }
+        return found == NOT_IN_TREE ? null : found;
+    }
 
-                float heightInches = 0;
-                if (isNumeric(info[4])) {
-                    Float.parseFloat(info[4].isEmpty() ? "0" : info[4]);
-                }
+    // Operates on the BST based on the incoming command, recording how long the command took
+    public void operate_BST(String[] inputs) {
+        long start = System.nanoTime();
+        try {
+            execute(inputs);
+        } finally {
+            metrics.recordCommand(inputs[0], System.nanoTime() - start);
+        }
+    }
 
-                float weightLbs = Float.parseFloat(info[5].isEmpty() ? "0" : info[5]);
-                float handSize = Float.parseFloat(info[6].isEmpty() ? "0" : info[6]);
-                float armLength = Float.parseFloat(info[7].isEmpty() ? "0" : info[7]);
-                float wonderlic = Float.parseFloat(info[8].isEmpty() ? "0" : info[8]);
-                float fortyYard = Float.parseFloat(info[9].isEmpty() ? "0" : info[9]);
-                float benchPress = Float.parseFloat(info[10].isEmpty() ? "0" : info[10]);
-                float verticalLeap = Float.parseFloat(info[11].isEmpty() ? "0" : info[11]);
-                float broadJump = Float.parseFloat(info[12].isEmpty() ? "0" : info[12]);
-                float shuttle = Float.parseFloat(info[13].isEmpty() ? "0" : info[13]);
-                float threeCone = Float.parseFloat(info[14].isEmpty() ? "0" : info[14]);
-                float sixtyYardShuttle = Float.parseFloat(info[15].isEmpty() ? "0" : info[15]);
-
-                //Create the object and set the values
-                Candidate newCandidate = new Candidate(info);
-                newCandidate.setYear(year);
-                newCandidate.setName(name);
-                newCandidate.setCollege(college);
-                newCandidate.setPos(position);
-                newCandidate.setHeight_in(heightInches);
-                newCandidate.setWeight_lbs(weightLbs);
-                newCandidate.setHand_size_in(handSize);
-                newCandidate.setArm_length_in(armLength);
-                newCandidate.setWonderlic(wonderlic);
-                newCandidate.setForty_yard(fortyYard);
-                newCandidate.setBench_press(benchPress);
-                newCandidate.setVert_leap_in(verticalLeap);
-                newCandidate.setBroad_jump_in(broadJump);
-                newCandidate.setShuttle(shuttle);
-                newCandidate.setThree_cone(threeCone);
-                newCandidate.setSixty_yd_shuttle(sixtyYardShuttle);
+    // Runs one command
+    private void execute(String[] inputs) {
+        // Resolve the candidate named by the command from the preloaded dataset
+        Candidate candidate = inputs.length > 1 ? lookup(inputs[1], !inputs[0].equals("insert")) : null;
 
-                //Insert object and print to result file
-                mybst.insert(newCandidate);
-                writeToFile("insert " + inputs[1], newFile);
+        switch (inputs[0]) {
+            //if the input command is insert, insert the named candidate
+            case "insert" -> {
+                if (candidate == null) {
+                    writeToFile(String.join(" ", inputs) + " failed"); // "insert failed" when no name was given
+                    return;
+                }
 
+                //Insert object and print to result file
+                mybst.insert(candidate);
+                for (OrderedIndex<Candidate> index : indexes.values()) {
+                    index.insert(candidate);
+                }
+                addLive(candidate);
+                searchCache.remove(inputs[1]);
+                writeToFile("insert " + inputs[1]);
             }
-            //In the case of print command print existing BST
+            //In the case of print command print existing BST, optionally one page of it in another format
             case "print" -> {
-                mybst.print();
+                if (!printTree(inputs.length > 1 ? inputs[1].split("\\s+") : new String[0])) {
+                    writeToFile("print failed");
+                }
             }
             //In the case of remove command remove an object from the BST
             case "remove" ->{
-
-                while (csvScanner.hasNextLine()) {
-                    String line = csvScanner.nextLine().trim();
-                    if (line.isEmpty()) continue;
-
-                    info = line.split(",", -1);
-
-                    if (!info[1].equals(inputs[1])) {
-                        continue;
+                //Remove the object if found or say failed if not found, print result
+                Candidate removed = candidate == null ? null : mybst.remove(candidate);
+                if (removed != null) {
+                    // Remove the row the tree actually gave up everywhere else too
+                    for (OrderedIndex<Candidate> index : indexes.values()) {
+                        index.remove(removed);
                     }
-                    break;
-
+                    removeLive(removed);
+                    searchCache.remove(inputs[1]);
+                    writeToFile("remove " + inputs[1]);
+                } else {
+                    writeToFile(String.join(" ", inputs) + " failed"); // "remove failed" when no name was given
+                }
+            }
+            //Search for given object
+            case "search" ->{
+                if (candidate != null && search(inputs[1], candidate) != null) {
+                    writeToFile("found " + inputs[1]);
+                } else {
+                    writeToFile("search failed");
+                }
+            }
+            //Build secondary indexes on one or more metrics
+            case "index" -> {
+                if (inputs.length < 2) {
+                    writeToFile("index failed");
+                    return;
+                }
+                for (String metric : inputs[1].split("\\s+")) {
+                    writeToFile(buildIndex(metric) ? "index " + metric : "index " + metric + " failed");
+                }
+            }
+            //Range, floor/ceiling and top/bottom k queries over a metric
+            case "range", "floor", "ceiling", "top", "bottom" -> {
+                if (!query(inputs[0], inputs.length > 1 ? inputs[1].split("\\s+") : new String[0])) {
+                    writeToFile(inputs[0] + " failed");
+                }
+            }
+            //Order statistics over a metric: rank and percentile of a player, or the i-th player
+            case "rank", "percentile", "nth" -> {
+                if (!orderStatistic(inputs[0], inputs.length > 1 ? inputs[1].split("\\s+", 2) : new String[0])) {
+                    writeToFile(inputs[0] + " failed");
+                }
+            }
+            //Filter the candidates in the tree on several fields, or show how such a query would run
+            case "select", "explain" -> {
+                if (!select(inputs[0], inputs.length > 1 ? inputs[1] : "")) {
+                    writeToFile(inputs[0] + " failed");
+                }
+            }
+            //Count the candidates in the tree per position, college or year
+            case "group" -> {
+                if (inputs.length < 2 || !postings.containsKey(inputs[1])) {
+                    writeToFile("group failed");
+                    return;
+                }
+                group(inputs[1]);
+            }
+            //Replace the tree with every candidate in the dataset, optionally only one position
+            case "load-all" -> {
+                loadAll(inputs.length > 1 ? inputs[1] : null);
+                writeToFile("load-all " + mybst.size());
+            }
+            //Write the loaded dataset to a binary snapshot for fast startup
+            case "snapshot" -> {
+                if (inputs.length < 2) {
+                    writeToFile("snapshot failed");
+                    return;
                 }
+                try {
+                    CandidateSnapshot.write(table, inputs[1]);
+                    writeToFile("snapshot " + inputs[1]);
+                } catch (IOException e) {
+                    writeToFile("snapshot " + inputs[1] + " failed");
+                }
+            }
+            //Checkpoint the tree to a file, or restore it from one
+            case "save", "load" -> {
+                if (inputs.length < 2) {
+                    writeToFile(inputs[0] + " failed");
+                    return;
+                }
+                try {
+                    if (inputs[0].equals("save")) {
+                        saveTree(inputs[1]);
+                    } else {
+                        loadTree(inputs[1]);
+                    }
+                    writeToFile(inputs[0] + " " + inputs[1]);
+                } catch (IOException e) {
+                    writeToFile(inputs[0] + " " + inputs[1] + " failed");
+                }
+            }
+            //Report tree shapes, comparison counts and command latencies
+            case "stats" -> {
+                writeToFile("stats");
+                writeToFile(statsReport());
+            }
+            default -> writeToFile("Invalid Command");
+        }
+    }
 
-                //Check csv data points, if missing create N/A or 0 entries
-                float year = Float.parseFloat(info[0].isEmpty() ? "0" : info[0]);
-                String name = info[1].isEmpty() ? "N/A" : info[1];
-                String college = info[2].isEmpty() ? "N/A" : info[2];
-                String position = info[3].isEmpty() ? "N/A" : info[3];
+    // Runs a range, floor, ceiling, top or bottom query described by 'args' (metric first)
+    // Returns false if the arguments are invalid
+    private boolean query(String command, String[] args) {
+        int expected = command.equals("range") ? 3 : 2;
+        if (args.length != expected || !buildIndex(args[0])) return false;
+        for (int i = 1; i < args.length; i++) {
+            if (!isNumeric(args[i])) return false;
+        }
+        OrderedIndex<Candidate> index = indexFor(args[0]);
+        int column = CandidateTable.metricColumn(args[0]);
+
+        switch (command) {
+            case "range" -> writeResults(command, args, index.rangeSearch(
+                    probe(column, Float.parseFloat(args[1])), probe(column, Float.parseFloat(args[2]))));
+            case "floor" -> writeResults(command, args, singleton(index.floor(probe(column, Float.parseFloat(args[1])))));
+            case "ceiling" -> writeResults(command, args, singleton(index.ceiling(probe(column, Float.parseFloat(args[1])))));
+            // Unmeasured (NaN) players sort last, so the top starts below them
+            case "top" -> writeResults(command, args, index.topK((int) Float.parseFloat(args[1]), probe(column, Float.MAX_VALUE)));
+            default -> writeResults(command, args, index.bottomK((int) Float.parseFloat(args[1])));
+        }
+        return true;
+    }
 
-                float heightInches = 0;
-                if (isNumeric(info[4])) {
-                    Float.parseFloat(info[4].isEmpty() ? "0" : info[4]);
-                }
+    // Runs a rank, percentile or nth command; 'args' holds the metric and then a name or index
+    // Returns false if the arguments are invalid or the named player is not in the tree
+    private boolean orderStatistic(String command, String[] args) {
+        if (args.length != 2 || !buildIndex(args[0])) return false;
+        OrderedIndex<Candidate> index = indexFor(args[0]);
+        String label = command + " " + args[0] + " " + args[1] + ": ";
+
+        if (command.equals("nth")) {
+            if (!isNumeric(args[1])) return false;
+            Candidate candidate = index.select((int) Float.parseFloat(args[1]));
+            if (candidate == null) return false;
+            writeToFile(label + candidate);
+            return true;
+        }
 
+        Candidate candidate = lookup(args[1], true);
+        int column = CandidateTable.metricColumn(args[0]);
+        if (candidate == null || index.search(candidate) == null || Float.isNaN(candidate.getMetric(column))) return false;
+        if (command.equals("rank")) {
+            writeToFile(label + index.rank(candidate));
+        } else {
+            // Only players with a measurement count towards the percentile; NaN sorts after all of them
+            int measured = index.rank(probe(column, Float.NaN));
+            writeToFile(label + String.format(Locale.ROOT, "%.1f", index.percentile(candidate, measured)));
+        }
+        return true;
+    }
 
-                float weightLbs = Float.parseFloat(info[5].isEmpty() ? "0" : info[5]);
-                float handSize = Float.parseFloat(info[6].isEmpty() ? "0" : info[6]);
-                float armLength = Float.parseFloat(info[7].isEmpty() ? "0" : info[7]);
-                float wonderlic = Float.parseFloat(info[8].isEmpty() ? "0" : info[8]);
-                float fortyYard = Float.parseFloat(info[9].isEmpty() ? "0" : info[9]);
-                float benchPress = Float.parseFloat(info[10].isEmpty() ? "0" : info[10]);
-                float verticalLeap = Float.parseFloat(info[11].isEmpty() ? "0" : info[11]);
-                float broadJump = Float.parseFloat(info[12].isEmpty() ? "0" : info[12]);
-                float shuttle = Float.parseFloat(info[13].isEmpty() ? "0" : info[13]);
-                float threeCone = Float.parseFloat(info[14].isEmpty() ? "0" : info[14]);
-                float sixtyYardShuttle = Float.parseFloat(info[15].isEmpty() ? "0" : info[15]);
-
-                //Create the object and set the values
-                Candidate newCandidate = new Candidate(info);
-                newCandidate.setYear(year);
-                newCandidate.setName(name);
-                newCandidate.setCollege(college);
-                newCandidate.setPos(position);
-                newCandidate.setHeight_in(heightInches);
-                newCandidate.setWeight_lbs(weightLbs);
-                newCandidate.setHand_size_in(handSize);
-                newCandidate.setArm_length_in(armLength);
-                newCandidate.setWonderlic(wonderlic);
-                newCandidate.setForty_yard(fortyYard);
-                newCandidate.setBench_press(benchPress);
-                newCandidate.setVert_leap_in(verticalLeap);
-                newCandidate.setBroad_jump_in(broadJump);
-                newCandidate.setShuttle(shuttle);
-                newCandidate.setThree_cone(threeCone);
-                newCandidate.setSixty_yd_shuttle(sixtyYardShuttle);
+    // Prints the tree for 'print [offset limit] [full|compact|csv]'; csv output starts with a header line
+    // Returns false if the arguments are invalid
+    private boolean printTree(String[] args) {
+        int offset = 0;
+        int limit = mybst.size();
+        int next = 0;
+        if (args.length >= 2 && isNumeric(args[0]) && isNumeric(args[1])) {
+            offset = (int) Float.parseFloat(args[0]);
+            limit = (int) Float.parseFloat(args[1]);
+            next = 2;
+        }
+        if (offset < 0 || limit < 0 || args.length - next > 1) return false;
+
+        String style = next < args.length ? args[next] : "full";
+        BiConsumer<Candidate, StringBuilder> format;
+        switch (style) {
+            case "full" -> format = Candidate::appendTo;
+            case "compact" -> format = Candidate::appendCompact;
+            case "csv" -> format = Candidate::appendCsv;
+            default -> {
+                return false;
+            }
+        }
 
-                //Remove the object if found or say failed if not found, print result
-                if (mybst.remove(newCandidate) != null) {
-                    writeToFile("remove " + inputs[1], newFile);
-                } else {
-                    writeToFile("remove " + inputs[1] + " failed", newFile);
-                }
+        try {
+            if (style.equals("csv")) {
+                out.write(Candidate.CSV_HEADER);
+                out.newLine();
             }
-            //Search for given object
-            case "search" ->{
+            mybst.print(out, offset, limit, format);
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing to the file.");
+        }
+        return true;
+    }
 
-                while (csvScanner.hasNextLine()) {
-                    String line = csvScanner.nextLine().trim();
-                    if (line.isEmpty()) continue;
+    // Runs a select query, or for explain describes its plan; returns false if the query does not parse
+    private boolean select(String command, String text) {
+        Query query;
+        try {
+            query = Query.parse(text, table);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (command.equals("explain")) {
+            writeToFile("explain " + text + ": " + query.explain(liveRows, this::indexFor, postings::get));
+            return true;
+        }
+        int[] rows = query.execute(table, liveRows, this::indexFor, postings::get);
+        List<Candidate> results = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            results.add(table.row(row));
+        }
+        writeResults(command, new String[] {text}, results);
+        return true;
+    }
 
-                    info = line.split(",", -1);
+    // Writes how many live rows hold each value of 'field' (pos, college or year), most common first
+    private void group(String field) {
+        PostingIndex index = postings.get(field);
+        List<int[]> counts = new ArrayList<>(); // {count, key} of every value with a live row
+        for (int key : index.keys()) {
+            int count = index.count(key);
+            if (count > 0) counts.add(new int[] {count, key});
+        }
+        counts.sort((a, b) -> a[0] != b[0] ? Integer.compare(b[0], a[0]) : Integer.compare(a[1], b[1]));
 
-                    if (!info[1].equals(inputs[1])) {
-                        continue;
-                    }
-                    break;
+        writeToFile("group " + field);
+        for (int[] count : counts) {
+            writeToFile(groupLabel(field, index, count[1]) + " " + count[0]);
+        }
+        writeToFile("");
+    }
 
-                }
+    // Returns the value 'key' stands for in 'field', read from any row posted under it
+    private String groupLabel(String field, PostingIndex index, int key) {
+        if (field.equals("year")) return Integer.toString(key);
+        long[] rows = index.get(key);
+        int w = 0;
+        while (rows[w] == 0) w++;
+        int row = (w << 6) + Long.numberOfTrailingZeros(rows[w]);
+        return field.equals("pos") ? table.getPos(row) : table.getCollege(row);
+    }
 
-                //Check csv data points, if missing create N/A or 0 entries
-                float year = Float.parseFloat(info[0].isEmpty() ? "0" : info[0]);
-                String name = info[1].isEmpty() ? "N/A" : info[1];
-                String college = info[2].isEmpty() ? "N/A" : info[2];
-                String position = info[3].isEmpty() ? "N/A" : info[3];
+    // Counts one more copy of 'candidate' in mybst, marking its row live on the first
+    private void addLive(Candidate candidate) {
+        int row = candidate.getRow();
+        if (liveCount[row]++ == 0) {
+            liveRows[row >>> 6] |= 1L << row;
+            if (table.getPosId(row) != CandidateTable.NO_ID) postings.get("pos").add(table.getPosId(row), row);
+            if (table.getCollegeId(row) != CandidateTable.NO_ID) postings.get("college").add(table.getCollegeId(row), row);
+            postings.get("year").add((int) table.getYear(row), row);
+        }
+    }
 
-                float heightInches = 0;
-                if (isNumeric(info[4])) {
-                    Float.parseFloat(info[4].isEmpty() ? "0" : info[4]);
-                }
+    // Counts one copy of 'candidate' less in mybst, clearing its row once none are left
+    private void removeLive(Candidate candidate) {
+        int row = candidate.getRow();
+        if (--liveCount[row] == 0) {
+            liveRows[row >>> 6] &= ~(1L << row);
+            postings.get("pos").remove(table.getPosId(row), row);
+            postings.get("college").remove(table.getCollegeId(row), row);
+            postings.get("year").remove((int) table.getYear(row), row);
+        }
+    }
 
-                float weightLbs = Float.parseFloat(info[5].isEmpty() ? "0" : info[5]);
-                float handSize = Float.parseFloat(info[6].isEmpty() ? "0" : info[6]);
-                float armLength = Float.parseFloat(info[7].isEmpty() ? "0" : info[7]);
-                float wonderlic = Float.parseFloat(info[8].isEmpty() ? "0" : info[8]);
-                float fortyYard = Float.parseFloat(info[9].isEmpty() ? "0" : info[9]);
-                float benchPress = Float.parseFloat(info[10].isEmpty() ? "0" : info[10]);
-                float verticalLeap = Float.parseFloat(info[11].isEmpty() ? "0" : info[11]);
-                float broadJump = Float.parseFloat(info[12].isEmpty() ? "0" : info[12]);
-                float shuttle = Float.parseFloat(info[13].isEmpty() ? "0" : info[13]);
-                float threeCone = Float.parseFloat(info[14].isEmpty() ? "0" : info[14]);
-                float sixtyYardShuttle = Float.parseFloat(info[15].isEmpty() ? "0" : info[15]);
-
-                //Create the object and set the values
-                Candidate newCandidate = new Candidate(info);
-                newCandidate.setYear(year);
-                newCandidate.setName(name);
-                newCandidate.setCollege(college);
-                newCandidate.setPos(position);
-                newCandidate.setHeight_in(heightInches);
-                newCandidate.setWeight_lbs(weightLbs);
-                newCandidate.setHand_size_in(handSize);
-                newCandidate.setArm_length_in(armLength);
-                newCandidate.setWonderlic(wonderlic);
-                newCandidate.setForty_yard(fortyYard);
-                newCandidate.setBench_press(benchPress);
-                newCandidate.setVert_leap_in(verticalLeap);
-                newCandidate.setBroad_jump_in(broadJump);
-                newCandidate.setShuttle(shuttle);
-                newCandidate.setThree_cone(threeCone);
-                newCandidate.setSixty_yd_shuttle(sixtyYardShuttle);
-
-                if (mybst.search(newCandidate) != null) {
-                    writeToFile("found " + inputs[1], newFile);
-                } else {
-                    writeToFile("search failed", newFile);
-                }
+    // Recounts the live rows and posting lists from mybst after it is replaced as a whole
+    private void recountLive() {
+        Arrays.fill(liveCount, 0);
+        Arrays.fill(liveRows, 0);
+        for (PostingIndex index : postings.values()) {
+            index.clear();
+        }
+        mybst.forEach(this::addLive);
+    }
+
+    // Returns a standalone candidate whose only set metric is 'column', used as a search key
+    private Candidate probe(int column, float value) {
+        Candidate probe = new Candidate();
+        probe.setMetric(column, value);
+        return probe;
+    }
 
+    // Wraps an optional result in a list
+    private List<Candidate> singleton(Candidate candidate) {
+        return candidate == null ? List.of() : List.of(candidate);
+    }
+
+    // Echoes the query, then writes one candidate per line followed by a blank line
+    private void writeResults(String command, String[] args, List<Candidate> results) {
+        writeToFile(command + " " + String.join(" ", args));
+        for (Candidate candidate : results) {
+            writeToFile(candidate.toString());
+        }
+        writeToFile("");
+    }
+
+    // Rebuilds mybst and every secondary index from the dataset rows, keeping only 'position' if it is not null
+    private void loadAll(String position) {
+        List<Candidate> candidates = new ArrayList<>(table.size());
+        for (int row = 0; row < table.size(); row++) {
+            if (position == null || position.equals(table.getPos(row))) {
+                candidates.add(table.row(row));
             }
-            default -> writeToFile("Invalid Command", newFile);
         }
+        mybst.clear();
+        mybst.bulkLoad(candidates);
+        for (OrderedIndex<Candidate> index : indexes.values()) {
+            index.clear();
+            index.bulkLoad(candidates);
+        }
+        recountLive();
+        searchCache.clear();
+    }
+
+    // Saves mybst to 'path' as the dataset's row count and fingerprint followed by each candidate's row id
+    // Name, year and college alone are not unique (one player can appear twice with different positions),
+    // so rows are saved by id and the header ties those ids to the dataset they index
+    private void saveTree(String path) throws IOException {
+        try (DataOutputStream file = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            file.writeInt(table.size());
+            file.writeLong(table.fingerprint());
+            mybst.save(file, (out, candidate) -> {
+                if (candidate.getTable() != table) throw new IOException("Candidate not in dataset: " + candidate.getName());
+                out.writeInt(candidate.getRow());
+            });
+        }
+    }
 
-        } catch (FileNotFoundException e) {
-            System.err.println("Error: File not found: " + csvFile);
+    // Restores mybst from a file written by saveTree and rebuilds the secondary indexes from it
+    // A missing file or one saved against a different dataset leaves the tree untouched; a damaged one leaves it empty
+    private void loadTree(String path) throws IOException {
+        try (DataInputStream file = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (file.readInt() != table.size() || file.readLong() != table.fingerprint()) {
+                throw new IOException("Saved against a different dataset: " + path);
+            }
+            try {
+                mybst.load(file, in -> {
+                    int row = in.readInt();
+                    if (row < 0 || row >= table.size()) throw new IOException("Row not in dataset: " + row);
+                    return table.row(row);
+                });
+            } catch (IOException e) {
+                mybst.clear(); // Never keep a partly restored tree
+                throw e;
+            } finally {
+                List<Candidate> candidates = new ArrayList<>(mybst.size());
+                mybst.forEach(candidates::add);
+                for (OrderedIndex<Candidate> index : indexes.values()) {
+                    index.clear();
+                    index.bulkLoad(candidates);
+                }
+                recountLive();
+                searchCache.clear();
+            }
         }
+    }
 
+    // Returns the tree ordered by 'metric': mybst for weight, otherwise a secondary index or null
+    private OrderedIndex<Candidate> indexFor(String metric) {
+        if (metric.equals("weight_lbs")) return mybst;
+        return indexes.get(metric);
+    }
 
+    // Builds a secondary index on 'metric' from the candidates currently in the tree
+    // Returns false if there is no such metric
+    private boolean buildIndex(String metric) {
+        if (indexFor(metric) != null) return true; // Already indexed
+        int column = CandidateTable.metricColumn(metric);
+        if (column < 0) return false;
+
+        List<Candidate> candidates = new ArrayList<>(mybst.size());
+        mybst.forEach(candidates::add);
+        OrderedIndex<Candidate> index = newIndex(column);
+        index.bulkLoad(candidates);
+        indexes.put(metric, index);
+        return true;
+    }
 
+    // Creates an empty index ordered by a metric column using the engine chosen with -Dparser.engine
+    private OrderedIndex<Candidate> newIndex(int column) {
+        return switch (engine) {
+            case "array" -> new ArrayBST<Candidate>(candidate -> candidate.getMetric(column), balanced);
+            case "bplus" -> new BPlusTree<>(Candidate.byMetric(column));
+            default -> new BST<>(Candidate.byMetric(column), balanced);
+        };
     }
 
-    // Method to write content to a specified file
-    public void writeToFile(String content, String filePath) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
-            writer.write(content); // Write the content to the file
-            writer.newLine(); // Add a newline after writing the content
+    // Method to write one line of content to the result file
+    // Inside a parallel batch the line is captured for the calling thread instead
+    public void writeToFile(String content) {
+        StringBuilder captured = capturedOutput.get();
+        if (captured != null) {
+            captured.append(content).append(System.lineSeparator());
+            return;
+        }
+        try {
+            out.write(content); // Write the content to the file
+            out.newLine(); // Add a newline after writing the content
         } catch (IOException e) {
             // Handle any IO exceptions during file writing
-            System.out.println("An error occurred while writing to the file.");
+            System.err.println("An error occurred while writing to the file.");
         }
     }
 }
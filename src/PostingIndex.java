@@ -0,0 +1,76 @@
+/**
+ * @file: PostingIndex.java
+ * @description: This program implements a hash index from a small integer key (a position or college
+ * dictionary id, or a year) to the table rows holding it. Each posting list is a bitmask with one bit per row,
+ * so intersecting two lists, such as all DEs from Alabama, is a word-by-word AND
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+class PostingIndex {
+    private final Map<Integer, long[]> postings = new HashMap<>(); // Row bitmask of each key
+    private final int words; // Length of every bitmask, enough for every table row
+
+    // Constructor for an empty index over a table of 'rows' rows
+    public PostingIndex(int rows) {
+        this.words = (rows + 63) >>> 6;
+    }
+
+    // Adds 'row' to the posting list of 'key'
+    public void add(int key, int row) {
+        postings.computeIfAbsent(key, k -> new long[words])[row >>> 6] |= 1L << row;
+    }
+
+    // Removes 'row' from the posting list of 'key'
+    public void remove(int key, int row) {
+        long[] rows = postings.get(key);
+        if (rows != null) rows[row >>> 6] &= ~(1L << row);
+    }
+
+    // Returns the row bitmask of 'key', or null if no row was ever added under it
+    // The array is the index's own, so callers must not modify it
+    public long[] get(int key) {
+        return postings.get(key);
+    }
+
+    // Returns the number of rows under 'key'
+    public int count(int key) {
+        int count = 0;
+        long[] rows = postings.get(key);
+        if (rows != null) {
+            for (long word : rows) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    // Returns every key that has had a row added
+    public Set<Integer> keys() {
+        return postings.keySet();
+    }
+
+    // Clears every posting list, keeping them allocated for reuse
+    public void clear() {
+        for (long[] rows : postings.values()) {
+            Arrays.fill(rows, 0);
+        }
+    }
+
+    // ANDs the posting list of 'key' into 'mask'; a key with no rows clears it
+    public void intersect(int key, long[] mask) {
+        long[] rows = postings.get(key);
+        if (rows == null) {
+            Arrays.fill(mask, 0);
+            return;
+        }
+        for (int w = 0; w < mask.length; w++) {
+            mask[w] &= rows[w];
+        }
+    }
+}
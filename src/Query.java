@@ -0,0 +1,392 @@
+/**
+ * @file: Query.java
+ * @description: This program implements the select command: a filter over candidates such as
+ * "pos=WR year>=2010 forty_yard<4.45 order by vert_leap_in desc limit 20". Matching rows are tracked as a
+ * bitmask with one bit per table row. Each predicate is evaluated 64 rows at a time straight off the primitive
+ * columns, skipping words no row survives in. A planner first ANDs in the posting lists of pos, college and
+ * year equalities, then narrows the mask through a metric index when one exists and is selective enough
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+class Query {
+
+    // Comparison operators, longest first so "<=" is not read as "<"
+    private static final String[] OPERATORS = {"<=", ">=", "!=", "=", "<", ">"};
+
+    // An index drives the query only when it expects fewer matches than the live rows divided by this
+    private static final int INDEX_SELECTIVITY = 8;
+
+    private final List<Predicate> predicates = new ArrayList<>(); // Conditions every result must meet
+    private int orderColumn = CandidateTable.WEIGHT_LBS; // Metric the results are sorted by
+    private boolean descending = false; // Whether results are sorted greatest first
+    private int limit = Integer.MAX_VALUE; // Most results returned
+
+    // Parses "<field><op><value> ... [order by <metric> [asc|desc]] [limit <n>]"
+    // Fields are pos, college, year or a metric name; values holding spaces go in double quotes
+    // Throws IllegalArgumentException describing the first problem found
+    public static Query parse(String text, CandidateTable table) {
+        Query query = new Query();
+        List<String> tokens = tokenize(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (token.equalsIgnoreCase("and")) continue;
+            if (token.equalsIgnoreCase("order")) {
+                if (i + 2 >= tokens.size() || !tokens.get(i + 1).equalsIgnoreCase("by")) {
+                    throw new IllegalArgumentException("expected: order by <metric>");
+                }
+                query.orderColumn = metric(tokens.get(i + 2));
+                i += 2;
+                if (i + 1 < tokens.size() && tokens.get(i + 1).matches("(?i)asc|desc")) {
+                    query.descending = tokens.get(++i).equalsIgnoreCase("desc");
+                }
+            } else if (token.equalsIgnoreCase("limit")) {
+                if (i + 1 >= tokens.size() || !tokens.get(i + 1).matches("\\d+")) {
+                    throw new IllegalArgumentException("expected: limit <count>");
+                }
+                query.limit = Integer.parseInt(tokens.get(++i));
+            } else {
+                query.predicates.add(Predicate.parse(token, table));
+            }
+        }
+        return query;
+    }
+
+    // Splits on whitespace, keeping double-quoted runs together and dropping the quotes
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (token.length() > 0) tokens.add(token.toString());
+                token.setLength(0);
+            } else {
+                token.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("unterminated quote");
+        if (token.length() > 0) tokens.add(token.toString());
+        return tokens;
+    }
+
+    // Returns the column id of a metric name, or throws if there is no such metric
+    private static int metric(String name) {
+        int column = CandidateTable.metricColumn(name);
+        if (column < 0) throw new IllegalArgumentException("unknown metric: " + name);
+        return column;
+    }
+
+    // Runs the query over the rows set in 'live' and returns the matching rows in result order
+    // 'indexes' returns the index ordered by a metric name, and 'postings' the posting index of pos, college
+    // or year; either returns null if there is none
+    public int[] execute(CandidateTable table, long[] live, Function<String, OrderedIndex<Candidate>> indexes,
+                         Function<String, PostingIndex> postings) {
+        long[] mask = live.clone();
+        for (Predicate predicate : predicates) {
+            if (predicate.hasPostings(postings)) predicate.intersect(postings, mask);
+        }
+        Predicate driver = plan(mask, indexes);
+        if (driver != null) {
+            // Only rows the index returns can match; every other predicate, the driver included, still runs on them
+            long[] found = new long[mask.length];
+            OrderedIndex<Candidate> index = indexes.apply(CandidateTable.METRIC_NAMES[driver.column]);
+            for (Candidate candidate : index.rangeSearch(driver.lowProbe(), driver.highProbe())) {
+                int row = candidate.getRow();
+                found[row >>> 6] |= 1L << row;
+            }
+            for (int w = 0; w < mask.length; w++) {
+                mask[w] &= found[w];
+            }
+        }
+        for (Predicate predicate : predicates) {
+            if (!predicate.hasPostings(postings)) predicate.filter(table, mask);
+        }
+        return order(table, mask);
+    }
+
+    // Describes how execute() would run the query, for the explain command
+    public String explain(long[] live, Function<String, OrderedIndex<Candidate>> indexes,
+                          Function<String, PostingIndex> postings) {
+        StringBuilder sb = new StringBuilder();
+        long[] mask = live.clone();
+        List<Predicate> filters = new ArrayList<>();
+        for (Predicate predicate : predicates) {
+            if (predicate.hasPostings(postings)) {
+                predicate.intersect(postings, mask);
+                sb.append(sb.length() == 0 ? "postings " : " ").append(predicate);
+            } else {
+                filters.add(predicate);
+            }
+        }
+        if (sb.length() > 0) sb.append(" ").append(count(mask)).append(" rows");
+        Predicate driver = plan(mask, indexes);
+        if (driver != null) {
+            sb.append(sb.length() == 0 ? "" : ", ").append("index ").append(CandidateTable.METRIC_NAMES[driver.column])
+                    .append(" ~").append(driver.estimate).append(" rows");
+        } else if (sb.length() == 0) {
+            sb.append("scan ").append(count(mask)).append(" rows");
+        }
+        for (int i = 0; i < filters.size(); i++) {
+            sb.append(i == 0 ? ", filter " : " ").append(filters.get(i));
+        }
+        sb.append(", order by ").append(CandidateTable.METRIC_NAMES[orderColumn]).append(descending ? " desc" : " asc");
+        if (limit != Integer.MAX_VALUE) sb.append(" limit ").append(limit);
+        return sb.toString();
+    }
+
+    // Picks the indexed range predicate expected to match the fewest rows, or null when scanning the rows
+    // left in 'live' is cheaper. Estimates never cost more than the scan they may replace: two rank descents
+    // where the engine has them, otherwise a walk of the range that stops once the index is not selective
+    private Predicate plan(long[] live, Function<String, OrderedIndex<Candidate>> indexes) {
+        int rows = count(live);
+        int limit = rows / INDEX_SELECTIVITY + 1; // Estimates this high are rejected whatever their exact value
+        Predicate best = null;
+        for (Predicate predicate : predicates) {
+            if (!predicate.isIndexable()) continue;
+            OrderedIndex<Candidate> index = indexes.apply(CandidateTable.METRIC_NAMES[predicate.column]);
+            if (index == null) continue;
+            predicate.estimate = predicate.estimate(index, limit);
+            if (best == null || predicate.estimate < best.estimate) best = predicate;
+        }
+        if (best == null || (long) best.estimate * INDEX_SELECTIVITY >= rows) return null;
+        return best;
+    }
+
+    // Returns the number of rows set in 'mask'
+    private static int count(long[] mask) {
+        int count = 0;
+        for (long word : mask) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    // Sorts the rows set in 'mask' by the order column and applies the limit
+    // Each row is packed into a long as (sortable key bits << 32 | row), so one primitive sort orders them,
+    // with ties in dataset order and unmeasured (NaN) rows last either way
+    private int[] order(CandidateTable table, long[] mask) {
+        float[] column = table.column(orderColumn);
+        long[] packed = new long[count(mask)];
+        int n = 0;
+        for (int w = 0; w < mask.length; w++) {
+            for (long word = mask[w]; word != 0; word &= word - 1) {
+                int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                packed[n++] = ((long) sortableKey(column[row]) << 32) | row;
+            }
+        }
+        Arrays.sort(packed);
+
+        int[] rows = new int[Math.min(limit, n)];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) packed[i];
+        }
+        return rows;
+    }
+
+    // Maps a metric to an int whose signed order is the sort order, keeping NaN greatest
+    private int sortableKey(float value) {
+        if (Float.isNaN(value)) return Integer.MAX_VALUE;
+        int bits = Float.floatToIntBits(value + 0.0f); // Adding 0 folds -0 into +0
+        int key = bits ^ ((bits >> 31) & Integer.MAX_VALUE); // Negative floats sort below positive ones
+        return descending ? -key - 1 : key; // -key - 1 never reaches MAX_VALUE, so NaN stays last
+    }
+
+    // One condition on a field, such as forty_yard<4.45 or pos=WR
+    private static final class Predicate {
+        private static final int METRIC = 0;
+        private static final int YEAR = 1;
+        private static final int POSITION = 2;
+        private static final int COLLEGE = 3;
+
+        private final int field; // METRIC, YEAR, POSITION or COLLEGE
+        private final int column; // Metric column id when field is METRIC
+        private final String op; // One of OPERATORS
+        private final String text; // Value as written
+        private final float value; // Value to compare with: a number, or a dictionary id for strings
+        private int estimate; // Rows the planner expects to match, when it has an index to ask
+
+        private Predicate(int field, int column, String op, String text, float value) {
+            this.field = field;
+            this.column = column;
+            this.op = op;
+            this.text = text;
+            this.value = value;
+        }
+
+        // Parses one "<field><op><value>" token
+        static Predicate parse(String token, CandidateTable table) {
+            for (String op : OPERATORS) {
+                int at = token.indexOf(op);
+                if (at <= 0 || at + op.length() == token.length()) continue;
+                // Take the operator that starts earliest, so "a<=b" is not split at "="
+                if (token.substring(0, at).matches(".*[<>=!].*")) continue;
+
+                String name = token.substring(0, at);
+                String text = token.substring(at + op.length());
+                switch (name) {
+                    case "pos", "college" -> {
+                        if (!op.equals("=") && !op.equals("!=")) {
+                            throw new IllegalArgumentException(name + " only supports = and !=");
+                        }
+                        short id = name.equals("pos") ? table.positionId(text) : table.collegeId(text);
+                        return new Predicate(name.equals("pos") ? POSITION : COLLEGE, -1, op, text, id);
+                    }
+                    case "year" -> {
+                        return new Predicate(YEAR, -1, op, text, number(text));
+                    }
+                    default -> {
+                        return new Predicate(METRIC, metric(name), op, text, number(text));
+                    }
+                }
+            }
+            throw new IllegalArgumentException("expected <field><op><value>: " + token);
+        }
+
+        // Parses a numeric value
+        private static float number(String text) {
+            if (!Parser.isNumeric(text)) throw new IllegalArgumentException("not a number: " + text);
+            return Float.parseFloat(text);
+        }
+
+        // Whether a metric index can narrow this predicate to a key range
+        boolean isIndexable() {
+            return field == METRIC && !op.equals("!=") && !Float.isNaN(value);
+        }
+
+        // Whether this is an equality on pos, college or year that a posting index can answer exactly
+        boolean hasPostings(Function<String, PostingIndex> postings) {
+            return field != METRIC && op.equals("=") && value == (int) value && postings.apply(fieldName()) != null;
+        }
+
+        // ANDs the posting list of this predicate's value into 'mask'
+        void intersect(Function<String, PostingIndex> postings, long[] mask) {
+            postings.apply(fieldName()).intersect((int) value, mask);
+        }
+
+        // Returns the name the field is written as
+        private String fieldName() {
+            return switch (field) {
+                case METRIC -> CandidateTable.METRIC_NAMES[column];
+                case YEAR -> "year";
+                case POSITION -> "pos";
+                default -> "college";
+            };
+        }
+
+        // Returns a standalone candidate whose only set metric is this predicate's column, used as a search key
+        private Candidate probe(float key) {
+            Candidate probe = new Candidate();
+            probe.setMetric(column, key);
+            return probe;
+        }
+
+        // Least and greatest keys of the index range covering every row this predicate can match
+        Candidate lowProbe() {
+            return probe(op.startsWith("<") ? Float.NEGATIVE_INFINITY : value);
+        }
+        Candidate highProbe() {
+            return probe(op.startsWith(">") ? Float.POSITIVE_INFINITY : value);
+        }
+
+        // Counts the rows of 'index' inside this predicate's key range: exactly with two rank lookups when
+        // rank is a descent, otherwise by walking the range, giving up at 'limit'
+        int estimate(OrderedIndex<Candidate> index, int limit) {
+            if (!index.hasFastRank()) return index.countRange(lowProbe(), highProbe(), limit);
+            int below = op.startsWith("<") ? 0 : index.rank(probe(value));
+            float high = op.startsWith(">") ? Float.POSITIVE_INFINITY : value;
+            return index.rank(probe(Math.nextUp(high))) - below;
+        }
+
+        // Clears the bits of 'mask' whose rows fail this predicate
+        void filter(CandidateTable table, long[] mask) {
+            switch (field) {
+                case METRIC -> filter(mask, table.size(), table.column(column));
+                case YEAR -> filter(mask, table.size(), table.yearColumn());
+                case POSITION -> filterId(mask, table.size(), table.posColumn());
+                default -> filterId(mask, table.size(), table.collegeColumn());
+            }
+        }
+
+        // Evaluates the comparison 64 rows at a time over a float column
+        // Words with no surviving row are skipped; NaN never matches, so unmeasured rows always drop out
+        private void filter(long[] mask, int rows, float[] values) {
+            for (int w = 0; w < mask.length; w++) {
+                long word = mask[w];
+                if (word == 0) continue;
+                int base = w << 6;
+                int end = Math.min(64, rows - base);
+                long bits = 0;
+                switch (op) {
+                    case "<" -> { for (int b = 0; b < end; b++) if (values[base + b] < value) bits |= 1L << b; }
+                    case "<=" -> { for (int b = 0; b < end; b++) if (values[base + b] <= value) bits |= 1L << b; }
+                    case ">" -> { for (int b = 0; b < end; b++) if (values[base + b] > value) bits |= 1L << b; }
+                    case ">=" -> { for (int b = 0; b < end; b++) if (values[base + b] >= value) bits |= 1L << b; }
+                    case "=" -> { for (int b = 0; b < end; b++) if (values[base + b] == value) bits |= 1L << b; }
+                    default -> {
+                        for (int b = 0; b < end; b++) {
+                            float x = values[base + b];
+                            if (x != value && x == x) bits |= 1L << b; // x == x excludes NaN
+                        }
+                    }
+                }
+                mask[w] = word & bits;
+            }
+        }
+
+        // Evaluates the comparison 64 rows at a time over the short year column
+        private void filter(long[] mask, int rows, short[] values) {
+            for (int w = 0; w < mask.length; w++) {
+                long word = mask[w];
+                if (word == 0) continue;
+                int base = w << 6;
+                int end = Math.min(64, rows - base);
+                long bits = 0;
+                switch (op) {
+                    case "<" -> { for (int b = 0; b < end; b++) if (values[base + b] < value) bits |= 1L << b; }
+                    case "<=" -> { for (int b = 0; b < end; b++) if (values[base + b] <= value) bits |= 1L << b; }
+                    case ">" -> { for (int b = 0; b < end; b++) if (values[base + b] > value) bits |= 1L << b; }
+                    case ">=" -> { for (int b = 0; b < end; b++) if (values[base + b] >= value) bits |= 1L << b; }
+                    case "=" -> { for (int b = 0; b < end; b++) if (values[base + b] == value) bits |= 1L << b; }
+                    default -> { for (int b = 0; b < end; b++) if (values[base + b] != value) bits |= 1L << b; }
+                }
+                mask[w] = word & bits;
+            }
+        }
+
+        // Evaluates = or != against a dictionary id column
+        // A value no row has matches nothing with = and everything with !=
+        private void filterId(long[] mask, int rows, short[] ids) {
+            boolean equal = op.equals("=");
+            if (value == CandidateTable.NO_ID) {
+                if (equal) Arrays.fill(mask, 0);
+                return;
+            }
+            short id = (short) value;
+            for (int w = 0; w < mask.length; w++) {
+                long word = mask[w];
+                if (word == 0) continue;
+                int base = w << 6;
+                int end = Math.min(64, rows - base);
+                long bits = 0;
+                for (int b = 0; b < end; b++) {
+                    if ((ids[base + b] == id) == equal) bits |= 1L << b;
+                }
+                mask[w] = word & bits;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return fieldName() + op + text;
+        }
+    }
+}
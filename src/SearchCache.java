@@ -0,0 +1,81 @@
+/**
+ * @file: SearchCache.java
+ * @description: This program implements a bounded cache of search results keyed by player name. Lookups are a
+ * plain ConcurrentHashMap read plus a reference bit, so parallel searches never take a lock; only a miss that
+ * overflows the cache takes one, to run a CLOCK (second chance) sweep that evicts an entry not read since the
+ * hand last passed it
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class SearchCache<V> {
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>(); // Cached values by name
+    private final int capacity; // Most entries kept
+    private Iterator<Map.Entry<String, Entry<V>>> hand; // CLOCK hand, only moved while holding 'this'
+
+    // Constructor for a cache holding at most 'capacity' entries
+    public SearchCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // Returns the value cached for 'key', or null if there is none, and marks it recently used
+    public V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) return null;
+        if (!entry.referenced) entry.referenced = true; // Only write when it changes, keeping hits read-only
+        return entry.value;
+    }
+
+    // Caches 'value' for 'key', evicting entries once there are more than the capacity
+    public void put(String key, V value) {
+        entries.put(key, new Entry<>(value));
+        if (entries.size() > capacity) evict();
+    }
+
+    // Drops the value cached for 'key'
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    // Drops every cached value
+    public void clear() {
+        entries.clear();
+    }
+
+    // Returns the number of cached values
+    public int size() {
+        return entries.size();
+    }
+
+    // Sweeps the hand round the entries, clearing reference bits and evicting the first entry found clear
+    // The map's iterators never fail on concurrent changes, so the hand survives puts and removes
+    private synchronized void evict() {
+        while (entries.size() > capacity) {
+            if (hand == null || !hand.hasNext()) {
+                hand = entries.entrySet().iterator();
+                if (!hand.hasNext()) return;
+            }
+            Map.Entry<String, Entry<V>> next = hand.next();
+            Entry<V> entry = next.getValue();
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else {
+                entries.remove(next.getKey(), entry); // Unless it was replaced since the hand reached it
+            }
+        }
+    }
+
+    // A cached value and whether it was read since the hand last passed it
+    private static final class Entry<V> {
+        final V value;
+        volatile boolean referenced;
+
+        Entry(V value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * @file: ConcurrentBSTStress.java
+ * @description: This program stress-tests ConcurrentBST with writer threads inserting and removing entries and
+ * reader threads searching and taking snapshots at the same time. Writers own disjoint entries but share keys,
+ * so they contend on the same nodes and equal-key buckets. It checks invariants rather than linearizability:
+ * each writer's own changes must be visible to it at once and applied exactly once, stable entries must never
+ * go missing, snapshots and ranges must stay ordered and free of duplicates, and once every thread has stopped
+ * size() and the final snapshot must hold exactly the entries inserted and not removed
+ * Run it with: gradle stress, or gradle stress --args='[writers] [readers] [operations per writer]'
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConcurrentBSTStress {
+
+    // Keys every writer draws from, so writers collide on the same nodes and buckets
+    private static final int SHARED_KEYS = 512;
+
+    // Keys each writer also has to itself, above the shared ones
+    private static final int PRIVATE_KEYS = 4096;
+
+    // Entries inserted before the run and never removed, so every search for them must succeed
+    private static final int STABLE_ENTRIES = 2048;
+
+    // Most errors printed before the rest are only counted
+    private static final int MAX_REPORTED = 20;
+
+    private final ConcurrentBST<Entry> tree = new ConcurrentBST<>(Entry.BY_KEY);
+    private final List<Entry> stable = new ArrayList<>(STABLE_ENTRIES); // Entries that must always be present
+    private final Queue<String> errors = new ConcurrentLinkedQueue<>(); // Every broken invariant seen
+    private final AtomicBoolean writing = new AtomicBoolean(true); // Cleared once every writer finishes
+    private final LongAdder reads = new LongAdder(); // Reader operations completed
+
+    // Runs the stress test and exits with status 1 if any invariant was broken
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        ConcurrentBSTStress stress = new ConcurrentBSTStress();
+        long start = System.nanoTime();
+        List<Entry> remaining = stress.run(writers, readers, operations);
+        try {
+            stress.checkFinal(remaining);
+        } catch (RuntimeException e) {
+            stress.errors.add("final check threw " + e);
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%d writers x %d operations, %d readers x %d reads, %d entries left, %d ms%n",
+                writers, operations, readers, stress.reads.sum() / Math.max(readers, 1), remaining.size(), millis);
+        if (!stress.errors.isEmpty()) {
+            int shown = 0;
+            for (String error : stress.errors) {
+                if (shown++ == MAX_REPORTED) break;
+                System.out.println("FAIL " + error);
+            }
+            System.out.println(stress.errors.size() + " errors");
+            System.exit(1);
+        }
+        System.out.println("ok");
+    }
+
+    // Starts every thread at once, waits for the writers and then the readers, and returns the entries the
+    // writers left in the tree together with the stable ones
+    private List<Entry> run(int writers, int readers, int operations) throws InterruptedException {
+        for (int i = 0; i < STABLE_ENTRIES; i++) {
+            Entry entry = new Entry(i % SHARED_KEYS, -1, i);
+            stable.add(entry);
+            tree.insert(entry);
+        }
+
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<List<Entry>> owned = new ArrayList<>();
+        List<Thread> writerThreads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            List<Entry> present = new ArrayList<>();
+            owned.add(present);
+            int writer = w;
+            writerThreads.add(start(startGate, () -> write(writer, operations, present)));
+        }
+        List<Thread> readerThreads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            int reader = r;
+            readerThreads.add(start(startGate, () -> read(reader)));
+        }
+
+        startGate.countDown();
+        for (Thread thread : writerThreads) thread.join();
+        writing.set(false);
+        for (Thread thread : readerThreads) thread.join();
+
+        List<Entry> remaining = new ArrayList<>(stable);
+        for (List<Entry> present : owned) remaining.addAll(present);
+        return remaining;
+    }
+
+    // Starts a thread that waits on 'gate' before running 'body'; anything it throws is recorded as an error
+    private Thread start(CountDownLatch gate, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                gate.await();
+                body.run();
+            } catch (Throwable e) {
+                errors.add(Thread.currentThread().getName() + " threw " + e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    // One writer: inserts fresh entries and removes its own, checking each change is visible at once and
+    // applied exactly once. 'present' ends up holding the writer's entries still in the tree
+    private void write(int writer, int operations, List<Entry> present) {
+        Random random = new Random(writer);
+        int base = SHARED_KEYS + writer * PRIVATE_KEYS;
+        for (int seq = 0; seq < operations; seq++) {
+            if (present.isEmpty() || random.nextInt(100) < 55) {
+                int key = random.nextBoolean() ? random.nextInt(SHARED_KEYS) : base + random.nextInt(PRIVATE_KEYS);
+                Entry entry = new Entry(key, writer, seq);
+                tree.insert(entry);
+                present.add(entry);
+                if (tree.search(entry) != entry) errors.add("lost insert of " + entry);
+            } else {
+                int i = random.nextInt(present.size());
+                Entry entry = present.get(i);
+                present.set(i, present.get(present.size() - 1));
+                present.remove(present.size() - 1);
+                Entry removed = tree.remove(entry);
+                if (removed != entry) errors.add("remove of " + entry + " returned " + removed);
+                if (tree.remove(entry) != null) errors.add("double remove of " + entry);
+                if (tree.search(entry) != null) errors.add("search found removed " + entry);
+            }
+        }
+    }
+
+    // One reader: until the writers finish, looks up stable entries and checks snapshots and ranges are in
+    // order, free of duplicates and hold every stable entry
+    private void read(int reader) {
+        Random random = new Random(1000 + reader);
+        while (writing.get()) {
+            int op = random.nextInt(1000);
+            if (op < 900) {
+                Entry entry = stable.get(random.nextInt(stable.size()));
+                if (tree.search(entry) != entry) errors.add("search missed stable " + entry);
+            } else if (op < 999) {
+                int lo = random.nextInt(SHARED_KEYS);
+                List<Entry> range = tree.rangeSearch(Entry.probe(lo), Entry.probe(lo + 16));
+                checkOrdered(range, "range " + lo);
+                for (Entry entry : range) {
+                    if (entry.key < lo || entry.key > lo + 16) errors.add("range " + lo + " returned " + entry);
+                }
+            } else {
+                List<Entry> snapshot = tree.snapshot();
+                checkOrdered(snapshot, "snapshot");
+                if (!new HashSet<>(snapshot).containsAll(stable)) errors.add("snapshot missing a stable entry");
+            }
+            reads.increment();
+        }
+    }
+
+    // Checks the writers' final state: size() matches the final snapshot, and the snapshot is ordered and holds
+    // exactly the entries that were inserted and not removed
+    private void checkFinal(List<Entry> remaining) {
+        int size = tree.size();
+        List<Entry> snapshot = tree.snapshot();
+        if (size != snapshot.size()) errors.add("size() " + size + " but snapshot has " + snapshot.size());
+        if (size != remaining.size()) errors.add("size() " + size + " but " + remaining.size() + " entries expected");
+        checkOrdered(snapshot, "final snapshot");
+        Set<Entry> expected = new HashSet<>(remaining);
+        for (Entry entry : snapshot) {
+            if (!expected.remove(entry)) errors.add("final snapshot holds removed " + entry);
+        }
+        for (Entry entry : expected) {
+            errors.add("final snapshot lost " + entry);
+        }
+    }
+
+    // Records an error if 'entries' is not in key order, or holds null or the same entry twice
+    private void checkOrdered(List<Entry> entries, String label) {
+        Set<Entry> seen = new HashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i) == null) {
+                errors.add(label + " holds null at " + i);
+                return;
+            }
+            if (i > 0 && entries.get(i - 1).key > entries.get(i).key) {
+                errors.add(label + " out of order at " + i + ": " + entries.get(i - 1) + " > " + entries.get(i));
+                return;
+            }
+            if (!seen.add(entries.get(i))) {
+                errors.add(label + " holds " + entries.get(i) + " twice");
+                return;
+            }
+        }
+    }
+
+    // A tree element: ordered by key only, and identified by the writer and sequence number that created it
+    private static final class Entry {
+        static final Comparator<Entry> BY_KEY = Comparator.comparingInt(entry -> entry.key);
+
+        final int key;
+        final int writer; // -1 for stable entries
+        final int seq;
+
+        Entry(int key, int writer, int seq) {
+            this.key = key;
+            this.writer = writer;
+            this.seq = seq;
+        }
+
+        // Returns a search key matching no stored entry
+        static Entry probe(int key) {
+            return new Entry(key, -2, 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Entry other && key == other.key && writer == other.writer && seq == other.seq;
+        }
+
+        @Override
+        public int hashCode() {
+            return (key * 31 + writer) * 31 + seq;
+        }
+
+        @Override
+        public String toString() {
+            return "key " + key + " (writer " + writer + " #" + seq + ")";
+        }
+    }
+}
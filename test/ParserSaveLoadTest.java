@@ -0,0 +1,82 @@
+/**
+ * @file: ParserSaveLoadTest.java
+ * @description: This program tests that save and load bring back exactly the candidates that were in the tree,
+ * including a player listed twice under one name, year and college, and that a tree saved against one dataset
+ * is refused by another
+ * @author: Tucker Corwen
+ * @date: September 25, 2024
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParserSaveLoadTest {
+
+    // The combine dataset, which lists 2005 Derrick Johnson of Texas twice: as a CB and as an OLB
+    private static final String DATASET = "src/nfl_combine.csv";
+
+    @TempDir
+    Path dir;
+
+    // Saving a tree holding only the OLB row and loading it back must restore the OLB, not the CB
+    @Test
+    void roundTripKeepsTheSavedRowOfADuplicatedPlayer() throws IOException {
+        Path saved = dir.resolve("tree.bin");
+        List<String> before = run(DATASET,
+                "insert Derrick Johnson",
+                "insert Derrick Johnson",
+                "remove Derrick Johnson",
+                "select pos=OLB",
+                "select pos=CB",
+                "save " + saved);
+        List<String> after = run(DATASET,
+                "load " + saved,
+                "select pos=OLB",
+                "select pos=CB");
+
+        assertEquals(selected(before, "select pos=OLB"), selected(after, "select pos=OLB"));
+        assertEquals(1, selected(after, "select pos=OLB").size());
+        assertEquals(List.of(), selected(after, "select pos=CB"));
+    }
+
+    // A file saved against the full dataset must not load into a parser reading a different csv
+    @Test
+    void loadRejectsATreeSavedAgainstAnotherDataset() throws IOException {
+        Path saved = dir.resolve("tree.bin");
+        run(DATASET, "insert Derrick Johnson", "save " + saved);
+
+        Path other = dir.resolve("other.csv");
+        try (var lines = Files.lines(Path.of(DATASET))) {
+            Files.write(other, lines.limit(100).toList());
+        }
+        List<String> result = run(other.toString(), "load " + saved);
+
+        assertEquals(List.of("load " + saved + " failed"), result);
+    }
+
+    // Runs 'commands' through a new Parser over 'dataset' and returns the lines of its result file
+    private List<String> run(String dataset, String... commands) throws IOException {
+        Path input = Files.createTempFile(dir, "commands", ".txt");
+        Path result = Files.createTempFile(dir, "result", ".txt");
+        Files.writeString(input, "\n" + String.join("\n", commands) + "\n"); // Parser skips the first line
+        System.setProperty("parser.dataset", dataset);
+        System.setProperty("parser.result", result.toString());
+        new Parser(input.toString());
+        return Files.readAllLines(result);
+    }
+
+    // Returns the candidate lines printed under 'command' in 'result', up to the blank line ending them
+    private static List<String> selected(List<String> result, String command) {
+        int start = result.indexOf(command) + 1;
+        int end = start;
+        while (end < result.size() && !result.get(end).isEmpty()) end++;
+        return result.subList(start, end);
+    }
+}